@@ -0,0 +1,32 @@
+package com.example.bankcards.benchmark;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import java.io.File;
+/**
+ * Запускает выбранные бенчмарки дважды — в одном потоке и в нескольких — с GC-профайлером,
+ * чтобы в результатах были и пропускная способность при конкуренции, и аллокации на операцию.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*";
+        int contendedThreads = Integer.getInteger("jmh.threads", 0);
+        if (contendedThreads <= 0) {
+            contendedThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        }
+        new File("target/jmh").mkdirs();
+        for (int threads : new int[]{1, contendedThreads}) {
+            Options options = new OptionsBuilder()
+                    .include(BenchmarkRunner.class.getPackageName() + ".*" + include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh/results-t" + threads + ".json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bankcards.benchmark;
+import com.example.bankcards.util.LongLongHashMap;
+import org.openjdk.jmh.annotations.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+/**
+ * Поиск владельца карты среди миллиона карт в {@link LongLongHashMap} и в {@code HashMap<Long, Long>}.
+ * Ключи выбираются случайно, поэтому обе таблицы в основном читаются мимо кэша процессора.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardOwnerIndexBenchmark {
+    private static final int CARDS = 1_000_000;
+    private LongLongHashMap primitive;
+    private Map<Long, Long> boxed;
+    @Setup
+    public void setUp() {
+        primitive = new LongLongHashMap(CARDS);
+        boxed = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(1);
+        for (long cardId = 1; cardId <= CARDS; cardId++) {
+            long userId = 1 + random.nextInt(CARDS / 2);
+            primitive.put(cardId, userId);
+            boxed.put(cardId, userId);
+        }
+    }
+    @State(Scope.Thread)
+    public static class Keys {
+        private final SplittableRandom random = new SplittableRandom();
+        long next() {
+            return 1 + random.nextInt(CARDS);
+        }
+    }
+    @Benchmark
+    public long primitiveLookup(Keys keys) {
+        return primitive.get(keys.next());
+    }
+    @Benchmark
+    public Long boxedLookup(Keys keys) {
+        return boxed.get(keys.next());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.bankcards.benchmark;
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.entity.Card;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardPageJsonBenchmark {
+    @Param({"10", "100"})
+    private int pageSize;
+    private ObjectMapper objectMapper;
+    private Page<CardResponse> page;
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<CardResponse> cards = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            CardResponse card = new CardResponse();
+            card.setId((long) i);
+            card.setMaskedCardNumber(CardResponse.maskCardNumber("encrypted_398512345678" + (1000 + i)));
+            card.setOwnerName("IVAN IVANOV");
+            card.setExpirationDate(YearMonth.of(2030, 12));
+            card.setStatus(Card.Status.ACTIVE);
+            card.setBalance(1000.0 + i);
+            card.setUserId(1L);
+            cards.add(card);
+        }
+        page = new PageImpl<>(cards, PageRequest.of(0, pageSize), 10_000);
+    }
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.benchmark;
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.util.CardUtils;
+import org.openjdk.jmh.annotations.*;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+/**
+ * {@code generateCardNumber} использует общий статический {@code SecureRandom}; разница между
+ * однопоточным и многопоточным прогоном показывает цену конкуренции за него.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardUtilsBenchmark {
+    private Card card;
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(1L);
+        card = new Card();
+        card.setId(42L);
+        card.setEncryptedCardNumber("encrypted_3985123456789012");
+        card.setOwnerName("IVAN IVANOV");
+        card.setExpirationDate(YearMonth.of(2030, 12));
+        card.setStatus(Card.Status.ACTIVE);
+        card.setBalance(1000.0);
+        card.setUser(user);
+    }
+    @Benchmark
+    public String generateCardNumber() {
+        return CardUtils.generateCardNumber();
+    }
+    @Benchmark
+    public CardResponse mapToCardResponse() {
+        return CardUtils.mapToCardResponse(card);
+    }
+    @Benchmark
+    public String maskCardNumber() {
+        return CardResponse.maskCardNumber(card.getEncryptedCardNumber());
+    }
+}
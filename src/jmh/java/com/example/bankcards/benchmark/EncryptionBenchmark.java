@@ -0,0 +1,23 @@
+package com.example.bankcards.benchmark;
+import com.example.bankcards.service.EncryptionService;
+import com.example.bankcards.service.impl.EncryptionServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptionBenchmark {
+    private final EncryptionService encryptionService = new EncryptionServiceImpl();
+    private String cardNumber;
+    @Setup
+    public void setUp() {
+        cardNumber = "3985123456789012";
+    }
+    @Benchmark
+    public String encrypt() {
+        return encryptionService.encrypt(cardNumber);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bankcards.benchmark;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import java.util.concurrent.TimeUnit;
+/**
+ * Накладные расходы инструментирования на Prometheus-реестре: запись в таймер с гистограммой
+ * перцентилей (как {@code bank.cards.row_lock.acquire}), инкремент счетчика исключений и вызов
+ * метода через {@code @Timed}-аспект по сравнению с прямым вызовом.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+    private Timer timer;
+    private Counter counter;
+    private Operation plain;
+    private Operation timed;
+    private long value = 42;
+    public static class Operation {
+        @Timed(value = "bank.benchmark.operation", histogram = true)
+        public long run(long value) {
+            return value * 31;
+        }
+    }
+    @Setup
+    public void setUp() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        timer = Timer.builder("bank.benchmark.timer").publishPercentileHistogram().register(registry);
+        counter = Counter.builder("bank.benchmark.counter").tag("type", "InsufficientFundsException").register(registry);
+        plain = new Operation();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Operation());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TimedAspect(registry));
+        timed = factory.getProxy();
+    }
+    @Benchmark
+    public void timerRecord() {
+        long start = System.nanoTime();
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    @Benchmark
+    public void counterIncrement() {
+        counter.increment();
+    }
+    @Benchmark
+    public long plainCall() {
+        return plain.run(value);
+    }
+    @Benchmark
+    public long timedCall() {
+        return timed.run(value);
+    }
+}
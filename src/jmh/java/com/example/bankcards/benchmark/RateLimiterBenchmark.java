@@ -0,0 +1,50 @@
+package com.example.bankcards.benchmark;
+import com.example.bankcards.util.RateLimiter;
+import org.openjdk.jmh.annotations.*;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+/**
+ * Проверка лимита для известного ключа и для нового ключа при заполненной таблице
+ * ({@code rate-limit.max-keys} = 100 000), когда новые ключи пачками вытесняют чужие корзины.
+ * Для проверки под конкуренцией запускается с {@code -Djmh.threads=16}. Пополнение медленное, поэтому корзины не успевают стать неактивными и плановая очистка их не убирает.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+    private static final int MAX_KEYS = 100_000;
+    private RateLimiter limiter;
+    private String[] knownKeys;
+    @Setup
+    public void setUp() {
+        limiter = new RateLimiter("benchmark", 10, 0.01, MAX_KEYS);
+        knownKeys = new String[MAX_KEYS];
+        long now = System.nanoTime();
+        for (int i = 0; i < MAX_KEYS; i++) {
+            knownKeys[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+            limiter.tryAcquire(knownKeys[i], now);
+        }
+    }
+    @State(Scope.Thread)
+    public static class Keys {
+        private final SplittableRandom random = new SplittableRandom();
+        private long sequence;
+        String known(String[] keys) {
+            return keys[random.nextInt(keys.length)];
+        }
+        String fresh() {
+            return "192.168." + Thread.currentThread().threadId() + "." + sequence++;
+        }
+    }
+    @Benchmark
+    public long knownKey(Keys keys) {
+        return limiter.tryAcquire(keys.known(knownKeys), System.nanoTime());
+    }
+    @Benchmark
+    public long newKeyWhenFull(Keys keys) {
+        return limiter.tryAcquire(keys.fresh(), System.nanoTime());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bankcards.benchmark;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.exception.GlobalExceptionHandler;
+import com.example.bankcards.exception.InvalidCardOperationException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+/**
+ * Стоимость отклоненного перевода без работы с БД: исключение бросается на глубине стека, измеренной в
+ * запущенном приложении (Tomcat, фильтры безопасности, прокси Spring), и превращается в JSON-тело ответа.
+ * {@code stackTraces=true} и {@code errorBody=MAP} — прежнее поведение: заполнение стека и ответ в виде
+ * {@code HashMap}; {@code stackTraces=false} и {@code errorBody=DTO} — текущее.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectedTransferBenchmark {
+    // глубина стека в момент отказа при POST /api/user/transactions/transfer
+    private static final int STACK_DEPTH = 210;
+    public enum ErrorBody { MAP, DTO }
+    @Param({"true", "false"})
+    private boolean stackTraces;
+    @Param({"MAP", "DTO"})
+    private ErrorBody errorBody;
+    private GlobalExceptionHandler handler;
+    private ObjectMapper objectMapper;
+    @Setup
+    public void setUp() {
+        BusinessException.setStackTraces(stackTraces);
+        ((Logger) LoggerFactory.getLogger(GlobalExceptionHandler.class)).setLevel(Level.OFF);
+        handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+    @TearDown
+    public void tearDown() {
+        BusinessException.setStackTraces(false);
+    }
+    @Benchmark
+    public byte[] rejectTransfer() throws JsonProcessingException {
+        try {
+            transferAt(STACK_DEPTH);
+            throw new IllegalStateException("Перевод не отклонен");
+        } catch (InvalidCardOperationException ex) {
+            Object body = errorBody == ErrorBody.DTO
+                    ? handler.handleBadRequestException(ex)
+                    : mapErrorResponse(ex.getMessage());
+            return objectMapper.writeValueAsBytes(body);
+        }
+    }
+    private static int transferAt(int depth) {
+        if (depth <= 1) {
+            throw new InvalidCardOperationException("Вы не можете использовать эту карту для перевода");
+        }
+        return transferAt(depth - 1) + 1;
+    }
+    private static Map<String, Object> mapErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.BAD_REQUEST.value());
+        response.put("error", "Bad Request");
+        response.put("message", message);
+        response.put("path", "");
+        return response;
+    }
+}
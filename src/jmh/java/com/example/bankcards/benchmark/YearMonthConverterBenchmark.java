@@ -0,0 +1,30 @@
+package com.example.bankcards.benchmark;
+import com.example.bankcards.util.YearMonthAttributeConverter;
+import org.openjdk.jmh.annotations.*;
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YearMonthConverterBenchmark {
+    private final YearMonthAttributeConverter converter = new YearMonthAttributeConverter();
+    private YearMonth yearMonth;
+    private Date date;
+    @Setup
+    public void setUp() {
+        yearMonth = YearMonth.of(2030, 12);
+        date = Date.valueOf(yearMonth.atDay(1));
+    }
+    @Benchmark
+    public Date toDatabaseColumn() {
+        return converter.convertToDatabaseColumn(yearMonth);
+    }
+    @Benchmark
+    public YearMonth toEntityAttribute() {
+        return converter.convertToEntityAttribute(date);
+    }
+}
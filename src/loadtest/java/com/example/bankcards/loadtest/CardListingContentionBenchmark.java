@@ -0,0 +1,152 @@
+package com.example.bankcards.loadtest;
+import com.example.bankcards.dto.transaction.TransactionRequest;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+/**
+ * Сравнивает задержку переводов в трех режимах: без параллельных чтений, рядом с листингом карт,
+ * берущим {@code FOR UPDATE} (как прежний {@code @Lock(PESSIMISTIC_WRITE)} на {@code findByUserId}),
+ * и рядом с текущим листингом через DTO-проекцию без блокировок. Переводы и проекция идут через
+ * настоящие сервисы, прежний запрос воспроизводится SQL-ом, который генерировал Hibernate.
+ */
+@Slf4j
+public class CardListingContentionBenchmark {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final String LOCKING_LISTING_SQL = "SELECT c.id, c.balance, c.encrypted_card_number, c.expiration_date, " +
+            "c.owner_name, c.status, c.user_id FROM cards c WHERE c.user_id = (SELECT id FROM users WHERE username = ?) " +
+            "ORDER BY c.id OFFSET 0 ROWS FETCH FIRST 10 ROWS ONLY FOR UPDATE";
+    private enum Mode { TRANSFERS_ONLY, LOCKING_LISTING, PROJECTION_LISTING }
+    private final LoadTestConfig config;
+    private final List<LoadTestUser> users;
+    private final TransactionService transactionService;
+    private final CardService cardService;
+    private final UserDetailsService userDetailsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readWrite;
+    private final List<Long> userIds = new ArrayList<>();
+    private volatile boolean running;
+    public CardListingContentionBenchmark(LoadTestConfig config, ApplicationContext context, List<LoadTestUser> users) {
+        this.config = config;
+        this.users = users;
+        this.transactionService = context.getBean(TransactionService.class);
+        this.cardService = context.getBean(CardService.class);
+        this.userDetailsService = context.getBean(UserDetailsService.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        for (LoadTestUser user : users) {
+            userIds.add(jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, user.getUsername()));
+        }
+    }
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        StringBuilder text = new StringBuilder();
+        try (LoadTestEnvironment environment = new LoadTestEnvironment(config)) {
+            environment.start();
+            CardListingContentionBenchmark benchmark =
+                    new CardListingContentionBenchmark(config, environment.getContext(), environment.getUsers());
+            text.append(String.format("Пользователей: %d, потоков переводов: %d, потоков листинга: %d, замер: %d с%n",
+                    config.getUsers(), config.getTransferThreads(), config.getListingThreads(), config.getDurationSeconds()));
+            text.append(String.format("%-20s %10s %10s %9s %9s %9s %9s %12s %10s%n",
+                    "mode", "transfers", "tps", "p50 ms", "p99 ms", "p999 ms", "max ms", "listings/s", "errors"));
+            for (Mode mode : Mode.values()) {
+                benchmark.phase(mode, config.getWarmupSeconds());
+                text.append(benchmark.phase(mode, config.getDurationSeconds()));
+            }
+        }
+        Path output = Path.of(config.getOutputDir());
+        Files.createDirectories(output);
+        Files.writeString(output.resolve("listing-contention.txt"), text);
+        System.out.print(text);
+        log.info("Отчет сохранен в {}", output.toAbsolutePath());
+        System.exit(0);
+    }
+    private String phase(Mode mode, int seconds) throws InterruptedException {
+        Recorder transferLatency = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        LongAdder listings = new LongAdder();
+        LongAdder errors = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        running = true;
+        for (int i = 0; i < config.getTransferThreads(); i++) {
+            threads.add(Thread.ofPlatform().name("transfer-" + i).start(() -> transferLoop(transferLatency, errors)));
+        }
+        if (mode != Mode.TRANSFERS_ONLY) {
+            for (int i = 0; i < config.getListingThreads(); i++) {
+                threads.add(Thread.ofPlatform().name("listing-" + i).start(() -> listingLoop(mode, listings, errors)));
+            }
+        }
+        long started = System.nanoTime();
+        TimeUnit.SECONDS.sleep(seconds);
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - started) / (double) TimeUnit.SECONDS.toNanos(1);
+        Histogram histogram = transferLatency.getIntervalHistogram();
+        return String.format("%-20s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %12.1f %10d%n",
+                mode.name().toLowerCase(), histogram.getTotalCount(), histogram.getTotalCount() / elapsed,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0,
+                listings.sum() / elapsed, errors.sum());
+    }
+    private void transferLoop(Recorder latency, LongAdder errors) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            LoadTestUser user = users.get(random.nextInt(users.size()));
+            UserDetails details = userDetailsService.loadUserByUsername(user.getUsername());
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+            List<Long> cards = user.getCardIds();
+            int from = random.nextInt(cards.size());
+            int to = (from + 1 + random.nextInt(cards.size() - 1)) % cards.size();
+            TransactionRequest request = new TransactionRequest();
+            request.setFromCardId(cards.get(from));
+            request.setToCardId(cards.get(to));
+            request.setAmount(1.0);
+            long start = System.nanoTime();
+            try {
+                transactionService.transfer(request);
+            } catch (RuntimeException e) {
+                errors.increment();
+            } finally {
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                latency.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                SecurityContextHolder.clearContext();
+            }
+        }
+    }
+    private void listingLoop(Mode mode, LongAdder listings, LongAdder errors) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            int index = random.nextInt(users.size());
+            try {
+                if (mode == Mode.LOCKING_LISTING) {
+                    String username = users.get(index).getUsername();
+                    readWrite.executeWithoutResult(status -> jdbcTemplate.queryForList(LOCKING_LISTING_SQL, username));
+                } else {
+                    cardService.getUserCards(userIds.get(index), PageRequest.of(0, 10));
+                }
+                listings.increment();
+            } catch (RuntimeException e) {
+                errors.increment();
+            }
+        }
+    }
+}
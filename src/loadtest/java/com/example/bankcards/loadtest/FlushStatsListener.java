@@ -0,0 +1,35 @@
+package com.example.bankcards.loadtest;
+import org.HdrHistogram.Recorder;
+import org.hibernate.SessionEventListener;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+/**
+ * Подключается к каждой сессии Hibernate через {@code hibernate.session.events.auto} и собирает длительность
+ * флашей и число сущностей и коллекций, которые Hibernate обошел при каждом из них.
+ */
+public class FlushStatsListener implements SessionEventListener {
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.SECONDS.toMicros(10);
+    static final Recorder FLUSH_MICROS = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    static final LongAdder FLUSHES = new LongAdder();
+    static final LongAdder ENTITIES = new LongAdder();
+    static final LongAdder COLLECTIONS = new LongAdder();
+    private long flushStart;
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+    }
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - flushStart);
+        FLUSH_MICROS.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+        FLUSHES.increment();
+        ENTITIES.add(numberOfEntities);
+        COLLECTIONS.add(numberOfCollections);
+    }
+    static void reset() {
+        FLUSH_MICROS.reset();
+        FLUSHES.reset();
+        ENTITIES.reset();
+        COLLECTIONS.reset();
+    }
+}
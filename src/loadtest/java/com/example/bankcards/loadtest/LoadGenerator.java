@@ -0,0 +1,184 @@
+package com.example.bankcards.loadtest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+/**
+ * Открытая модель нагрузки: запросы отправляются по расписанию с фиксированной частотой независимо
+ * от того, ответил ли сервер на предыдущие. Задержка считается от запланированного момента отправки,
+ * поэтому отставание генератора или очередь на сервере попадают в гистограмму (без coordinated omission).
+ */
+@Slf4j
+public class LoadGenerator {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final List<LoadTestUser> users;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Operation[] schedule;
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Operation, LongAdder> dropped = new EnumMap<>(Operation.class);
+    public LoadGenerator(LoadTestConfig config, String baseUrl, List<LoadTestUser> users) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(config.getRequestTimeoutSeconds()))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        int total = config.getMix().values().stream().mapToInt(Integer::intValue).sum();
+        this.schedule = new Operation[total];
+        int index = 0;
+        for (Map.Entry<Operation, Integer> entry : config.getMix().entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                schedule[index++] = entry.getKey();
+            }
+        }
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new LongAdder());
+            dropped.put(operation, new LongAdder());
+        }
+    }
+    public void loginAll() throws InterruptedException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (LoadTestUser user : users) {
+                executor.submit(() -> {
+                    user.setToken(login(user));
+                    return null;
+                });
+            }
+        }
+        long missing = users.stream().filter(user -> user.getToken() == null).count();
+        if (missing > 0) {
+            throw new IllegalStateException("Не удалось получить токен для " + missing + " пользователей");
+        }
+    }
+    public LoadTestReport run() throws InterruptedException {
+        log.info("Прогрев {} с при {} запросов/с", config.getWarmupSeconds(), config.getRatePerSecond());
+        drive(config.getWarmupSeconds());
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        recorders.forEach((operation, recorder) -> recorder.reset());
+        errors.values().forEach(LongAdder::reset);
+        dropped.values().forEach(LongAdder::reset);
+        log.info("Замер {} с при {} запросов/с", config.getDurationSeconds(), config.getRatePerSecond());
+        long started = System.nanoTime();
+        drive(config.getDurationSeconds());
+        long elapsed = System.nanoTime() - started;
+        recorders.forEach((operation, recorder) -> histograms.put(operation, recorder.getIntervalHistogram()));
+        Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+        errors.forEach((operation, counter) -> errorCounts.put(operation, counter.sum()));
+        Map<Operation, Long> droppedCounts = new EnumMap<>(Operation.class);
+        dropped.forEach((operation, counter) -> droppedCounts.put(operation, counter.sum()));
+        return new LoadTestReport(config, elapsed, histograms, errorCounts, droppedCounts);
+    }
+    private void drive(int seconds) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.getRatePerSecond());
+        long total = (long) (config.getRatePerSecond() * seconds);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long intended = start + i * intervalNanos;
+                long delay = intended - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                Operation operation = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+                if (inFlight.incrementAndGet() > config.getMaxInFlight()) {
+                    inFlight.decrementAndGet();
+                    dropped.get(operation).increment();
+                    errors.get(operation).increment();
+                    continue;
+                }
+                executor.submit(() -> execute(operation, intended));
+            }
+            executor.shutdown();
+            executor.awaitTermination(config.getRequestTimeoutSeconds() * 2L, TimeUnit.SECONDS);
+        }
+    }
+    private void execute(Operation operation, long intendedNanos) {
+        boolean ok = false;
+        try {
+            HttpResponse<String> response = client.send(buildRequest(operation), HttpResponse.BodyHandlers.ofString());
+            ok = response.statusCode() < 400;
+        } catch (Exception e) {
+            log.debug("Запрос {} завершился ошибкой: {}", operation, e.toString());
+        } finally {
+            inFlight.decrementAndGet();
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedNanos);
+            recorders.get(operation).recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+            if (!ok) {
+                errors.get(operation).increment();
+            }
+        }
+    }
+    private HttpRequest buildRequest(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LoadTestUser user = users.get(random.nextInt(users.size()));
+        List<Long> cards = user.getCardIds();
+        return switch (operation) {
+            case LOGIN -> loginRequest(user);
+            case CARDS -> authorized(user, "/api/user/cards?page=0&size=10").GET().build();
+            case BALANCE -> authorized(user, "/api/user/cards/" + cards.get(random.nextInt(cards.size())) + "/balance")
+                    .GET().build();
+            case TRANSFER -> {
+                int from = random.nextInt(cards.size());
+                int to = (from + 1 + random.nextInt(cards.size() - 1)) % cards.size();
+                String body = "{\"fromCardId\":" + cards.get(from) + ",\"toCardId\":" + cards.get(to) + ",\"amount\":1.0}";
+                yield authorized(user, "/api/user/transactions/transfer")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+        };
+    }
+    private HttpRequest.Builder authorized(LoadTestUser user, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(config.getRequestTimeoutSeconds()))
+                .header("Authorization", "Bearer " + user.getToken());
+    }
+    private HttpRequest loginRequest(LoadTestUser user) {
+        String body = "{\"username\":\"" + user.getUsername() + "\",\"password\":\"" + LoadTestEnvironment.PASSWORD + "\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .timeout(Duration.ofSeconds(config.getRequestTimeoutSeconds()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+    private String login(LoadTestUser user) throws Exception {
+        Exception last = null;
+        for (int attempt = 0; attempt < 3; attempt++) {
+            try {
+                HttpResponse<String> response = client.send(loginRequest(user), HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) {
+                    JsonNode json = objectMapper.readTree(response.body());
+                    return json.get("token").asText();
+                }
+                last = new IllegalStateException("Логин " + user.getUsername() + " вернул " + response.statusCode());
+            } catch (Exception e) {
+                last = e;
+            }
+        }
+        throw last;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.loadtest;
+import lombok.Getter;
+import java.util.EnumMap;
+import java.util.Map;
+/**
+ * Параметры прогона из системных свойств {@code loadtest.*}.
+ */
+@Getter
+public class LoadTestConfig {
+    private final int users = Integer.getInteger("loadtest.users", 50);
+    private final int cardsPerUser = Math.max(2, Integer.getInteger("loadtest.cards-per-user", 2));
+    private final double ratePerSecond = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 60);
+    private final int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 2000);
+    private final int requestTimeoutSeconds = Integer.getInteger("loadtest.request-timeout-seconds", 10);
+    private final int listingThreads = Integer.getInteger("loadtest.listing-threads", 8);
+    private final int transferThreads = Integer.getInteger("loadtest.transfer-threads", 4);
+    private final String jdbcUrl = blankToNull(System.getProperty("loadtest.jdbc-url"));
+    private final String jdbcUsername = System.getProperty("loadtest.jdbc-username", "postgres");
+    private final String jdbcPassword = System.getProperty("loadtest.jdbc-password", "123");
+    private final String postgresImage = System.getProperty("loadtest.postgres-image", "postgres:15-alpine");
+    private final String[] profiles = System.getProperty("loadtest.profiles", "dev").split(",");
+    private final String outputDir = System.getProperty("loadtest.output-dir", "target/loadtest");
+    private final Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix", "login=5,cards=40,balance=35,transfer=20"));
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Некорректный элемент loadtest.mix: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(Operation.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix не содержит ни одной операции");
+        }
+        return mix;
+    }
+}
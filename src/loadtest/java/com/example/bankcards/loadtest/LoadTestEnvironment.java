@@ -0,0 +1,94 @@
+package com.example.bankcards.loadtest;
+import com.example.bankcards.BankRestApplication;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import java.util.ArrayList;
+import java.util.List;
+/**
+ * Поднимает Postgres (Testcontainers или внешний {@code loadtest.jdbc-url}), запускает приложение
+ * на случайном порту и создает пользователей с картами напрямую через JDBC.
+ */
+@Slf4j
+public class LoadTestEnvironment implements AutoCloseable {
+    public static final String PASSWORD = "loadtest-password";
+    private static final String USERNAME_PREFIX = "loadtest_";
+    private final LoadTestConfig config;
+    private PostgreSQLContainer<?> postgres;
+    @Getter
+    private ConfigurableApplicationContext context;
+    @Getter
+    private String baseUrl;
+    @Getter
+    private final List<LoadTestUser> users = new ArrayList<>();
+    public LoadTestEnvironment(LoadTestConfig config) {
+        this.config = config;
+    }
+    public void start() {
+        String jdbcUrl = config.getJdbcUrl();
+        String username = config.getJdbcUsername();
+        String password = config.getJdbcPassword();
+        if (jdbcUrl == null) {
+            postgres = new PostgreSQLContainer<>(config.getPostgresImage())
+                    .withDatabaseName("bankdb")
+                    .withUsername("postgres")
+                    .withPassword("123");
+            postgres.start();
+            jdbcUrl = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+        }
+        log.info("Запуск приложения на {} с профилями {}", jdbcUrl, String.join(",", config.getProfiles()));
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(BankRestApplication.class)
+                .profiles(config.getProfiles())
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + jdbcUrl,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--velocity.enabled=false",
+                        "--rate-limit.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.bankcards=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.springframework.security=WARN");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        seed();
+    }
+    private void seed() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        jdbcTemplate.update("DELETE FROM cards WHERE user_id IN (SELECT id FROM users WHERE username LIKE ?)", USERNAME_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", USERNAME_PREFIX + "%");
+        Long roleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = 'USER'", Long.class);
+        for (int i = 0; i < config.getUsers(); i++) {
+            String username = USERNAME_PREFIX + i;
+            Long userId = jdbcTemplate.queryForObject(
+                    "INSERT INTO users (username, password) VALUES (?, ?) RETURNING id", Long.class, username, passwordHash);
+            jdbcTemplate.update("INSERT INTO users_roles (user_id, role_id) VALUES (?, ?)", userId, roleId);
+            List<Long> cardIds = new ArrayList<>(config.getCardsPerUser());
+            for (int c = 0; c < config.getCardsPerUser(); c++) {
+                String cardNumber = String.format("encrypted_3985%012d", userId * 100 + c);
+                cardIds.add(jdbcTemplate.queryForObject(
+                        "INSERT INTO cards (encrypted_card_number, owner_name, expiration_date, status, balance, user_id) " +
+                                "VALUES (?, ?, DATE '2099-12-01', 'ACTIVE', 1000000000, ?) RETURNING id",
+                        Long.class, cardNumber, "LOAD TEST " + i, userId));
+            }
+            users.add(new LoadTestUser(username, cardIds));
+        }
+        log.info("Создано {} пользователей по {} карты", users.size(), config.getCardsPerUser());
+    }
+    @Override
+    public void close() {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+}
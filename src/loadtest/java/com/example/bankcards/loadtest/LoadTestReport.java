@@ -0,0 +1,96 @@
+package com.example.bankcards.loadtest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+public class LoadTestReport {
+    private final Map<String, Object> summary = new LinkedHashMap<>();
+    private final Map<Operation, Histogram> histograms;
+    public LoadTestReport(LoadTestConfig config, long elapsedNanos, Map<Operation, Histogram> histograms,
+                          Map<Operation, Long> errors, Map<Operation, Long> dropped) {
+        this.histograms = histograms;
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        long totalDropped = 0;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long operationDropped = dropped.getOrDefault(entry.getKey(), 0L);
+            if (histogram.getTotalCount() == 0 && operationDropped == 0) {
+                continue;
+            }
+            total.add(histogram);
+            long operationErrors = errors.getOrDefault(entry.getKey(), 0L);
+            totalErrors += operationErrors;
+            totalDropped += operationDropped;
+            operations.put(entry.getKey().name().toLowerCase(), stats(histogram, operationErrors, operationDropped, seconds));
+        }
+        summary.put("targetRatePerSecond", config.getRatePerSecond());
+        summary.put("durationSeconds", round(seconds));
+        summary.put("users", config.getUsers());
+        summary.put("mix", config.getMix());
+        summary.put("droppedByInFlightLimit", totalDropped);
+        summary.put("total", stats(total, totalErrors, totalDropped, seconds));
+        summary.put("operations", operations);
+    }
+    private static Map<String, Object> stats(Histogram histogram, long errors, long dropped, double seconds) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long count = histogram.getTotalCount();
+        // отброшенные запросы входят в errors, но не в гистограмму: доля считается от всех запланированных
+        long scheduled = count + dropped;
+        stats.put("requests", count);
+        stats.put("dropped", dropped);
+        stats.put("throughputPerSecond", round(count / seconds));
+        stats.put("errors", errors);
+        stats.put("errorRate", scheduled == 0 ? 0.0 : round((double) errors / scheduled));
+        stats.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+        stats.put("p90Ms", millis(histogram.getValueAtPercentile(90)));
+        stats.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+        stats.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+        stats.put("maxMs", millis(histogram.getMaxValue()));
+        return stats;
+    }
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("report.json").toFile(), summary);
+        Files.writeString(directory.resolve("report.txt"), toText());
+        for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            if (entry.getValue().getTotalCount() > 0) {
+                try (PrintStream out = new PrintStream(directory.resolve(entry.getKey().name().toLowerCase() + ".hgrm").toFile())) {
+                    entry.getValue().outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+    }
+    @SuppressWarnings("unchecked")
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Целевая частота: %s запросов/с, длительность: %s с, отброшено: %s%n",
+                summary.get("targetRatePerSecond"), summary.get("durationSeconds"), summary.get("droppedByInFlightLimit")));
+        text.append(String.format("%-10s %10s %10s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "rps", "errors", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms"));
+        Map<String, Object> rows = new LinkedHashMap<>((Map<String, Object>) summary.get("operations"));
+        rows.put("total", summary.get("total"));
+        rows.forEach((name, value) -> {
+            Map<String, Object> stats = (Map<String, Object>) value;
+            text.append(String.format("%-10s %10s %10s %8s %9s %9s %9s %9s %9s%n", name,
+                    stats.get("requests"), stats.get("throughputPerSecond"), stats.get("errors"),
+                    stats.get("p50Ms"), stats.get("p90Ms"), stats.get("p99Ms"), stats.get("p999Ms"), stats.get("maxMs")));
+        });
+        return text.toString();
+    }
+}
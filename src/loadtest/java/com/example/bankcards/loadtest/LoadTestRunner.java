@@ -0,0 +1,21 @@
+package com.example.bankcards.loadtest;
+import lombok.extern.slf4j.Slf4j;
+import java.nio.file.Path;
+@Slf4j
+public class LoadTestRunner {
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        LoadTestReport report;
+        try (LoadTestEnvironment environment = new LoadTestEnvironment(config)) {
+            environment.start();
+            LoadGenerator generator = new LoadGenerator(config, environment.getBaseUrl(), environment.getUsers());
+            generator.loginAll();
+            report = generator.run();
+        }
+        Path output = Path.of(config.getOutputDir());
+        report.write(output);
+        System.out.print(report.toText());
+        log.info("Отчет сохранен в {}", output.toAbsolutePath());
+        System.exit(0);
+    }
+}
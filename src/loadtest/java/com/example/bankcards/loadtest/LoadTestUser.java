@@ -0,0 +1,13 @@
+package com.example.bankcards.loadtest;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import java.util.List;
+@Getter
+@RequiredArgsConstructor
+public class LoadTestUser {
+    private final String username;
+    private final List<Long> cardIds;
+    @Setter
+    private volatile String token;
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.loadtest;
+public enum Operation {
+    LOGIN,
+    CARDS,
+    BALANCE,
+    TRANSFER
+}
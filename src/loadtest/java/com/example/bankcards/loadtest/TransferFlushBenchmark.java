@@ -0,0 +1,166 @@
+package com.example.bankcards.loadtest;
+import com.example.bankcards.dto.transaction.TransactionRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TransactionService;
+import com.example.bankcards.service.UserService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+/**
+ * Гоняет в {@code loadtest.transfer-threads} потоков переводы через {@link TransactionService}, чтения списков
+ * (карты пользователя, все пользователи) и чтение {@code loadtest.scan-cards} карт сущностями в пишущей транзакции
+ * с явным флашем, на котором видна стоимость проверки грязных сущностей. По {@link FlushStatsListener} считает,
+ * сколько сущностей и коллекций лежит в persistence context на момент флаша и сколько флаш занимает в расчете
+ * на одну операцию, а по {@link com.sun.management.ThreadMXBean} — сколько байт выделяет поток на операцию.
+ */
+@Slf4j
+public class TransferFlushBenchmark {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final int SCAN_CARDS = Integer.getInteger("loadtest.scan-cards", 500);
+    private enum Workload { TRANSFER, USER_CARDS, USERS, CARD_SCAN }
+    private final List<LoadTestUser> users;
+    private final int threads;
+    private final TransactionService transactionService;
+    private final CardService cardService;
+    private final UserService userService;
+    private final UserDetailsService userDetailsService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readWrite;
+    private final List<Long> userIds = new ArrayList<>();
+    private volatile boolean running;
+    public TransferFlushBenchmark(LoadTestConfig config, ApplicationContext context, List<LoadTestUser> users) {
+        this.users = users;
+        this.threads = config.getTransferThreads();
+        this.transactionService = context.getBean(TransactionService.class);
+        this.cardService = context.getBean(CardService.class);
+        this.userService = context.getBean(UserService.class);
+        this.userDetailsService = context.getBean(UserDetailsService.class);
+        this.entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        this.readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (LoadTestUser user : users) {
+            userIds.add(jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, user.getUsername()));
+        }
+    }
+    public static void main(String[] args) throws Exception {
+        // JpaConfig собирает свойства Hibernate сам, а системные свойства Hibernate читает всегда
+        System.setProperty(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, FlushStatsListener.class.getName());
+        LoadTestConfig config = new LoadTestConfig();
+        StringBuilder text = new StringBuilder();
+        try (LoadTestEnvironment environment = new LoadTestEnvironment(config)) {
+            environment.start();
+            TransferFlushBenchmark benchmark = new TransferFlushBenchmark(config, environment.getContext(), environment.getUsers());
+            text.append(String.format("Потоков: %d, замер: %d с на нагрузку%n", config.getTransferThreads(), config.getDurationSeconds()));
+            text.append(String.format("%-11s %8s %9s %8s %9s %9s %10s %9s %9s %11s%n", "workload", "ops/s",
+                    "flush/op", "ent/op", "coll/op", "flush us", "flush p99", "p50 ms", "p99 ms", "alloc KB/op"));
+            for (Workload workload : Workload.values()) {
+                benchmark.phase(workload, config.getWarmupSeconds());
+                text.append(benchmark.phase(workload, config.getDurationSeconds()));
+            }
+        }
+        Path output = Path.of(config.getOutputDir());
+        Files.createDirectories(output);
+        Files.writeString(output.resolve("transfer-flush.txt"), text);
+        System.out.print(text);
+        log.info("Отчет сохранен в {}", output.toAbsolutePath());
+        System.exit(0);
+    }
+    private String phase(Workload workload, int seconds) throws InterruptedException {
+        Recorder latency = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        LongAdder errors = new LongAdder();
+        LongAdder allocated = new LongAdder();
+        FlushStatsListener.reset();
+        List<Thread> workers = new ArrayList<>();
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            workers.add(Thread.ofPlatform().name(workload.name().toLowerCase() + "-" + i)
+                    .start(() -> loop(workload, latency, errors, allocated)));
+        }
+        long started = System.nanoTime();
+        TimeUnit.SECONDS.sleep(seconds);
+        running = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - started) / (double) TimeUnit.SECONDS.toNanos(1);
+        Histogram operations = latency.getIntervalHistogram();
+        Histogram flushes = FlushStatsListener.FLUSH_MICROS.getIntervalHistogram();
+        double count = Math.max(1, operations.getTotalCount());
+        if (errors.sum() > 0) {
+            log.warn("{}: ошибок {}", workload, errors.sum());
+        }
+        return String.format("%-11s %8.1f %9.2f %8.2f %9.2f %9.1f %10d %9.2f %9.2f %11.1f%n",
+                workload.name().toLowerCase(), operations.getTotalCount() / elapsed,
+                FlushStatsListener.FLUSHES.sum() / count, FlushStatsListener.ENTITIES.sum() / count,
+                FlushStatsListener.COLLECTIONS.sum() / count,
+                flushes.getMean() * flushes.getTotalCount() / count, flushes.getValueAtPercentile(99),
+                operations.getValueAtPercentile(50) / 1000.0, operations.getValueAtPercentile(99) / 1000.0,
+                allocated.sum() / count / 1024);
+    }
+    private void loop(Workload workload, Recorder latency, LongAdder errors, LongAdder allocated) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long threadId = Thread.currentThread().threadId();
+        while (running) {
+            int index = random.nextInt(users.size());
+            LoadTestUser user = users.get(index);
+            UserDetails details = userDetailsService.loadUserByUsername(user.getUsername());
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+            long bytes = THREADS.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            try {
+                switch (workload) {
+                    case TRANSFER -> transactionService.transfer(transferRequest(user, random));
+                    case USER_CARDS -> cardService.getUserCards(userIds.get(index), PageRequest.of(0, 10));
+                    case USERS -> userService.getAllUsers();
+                    case CARD_SCAN -> readWrite.executeWithoutResult(status -> {
+                        entityManager.createQuery("select c from Card c order by c.id", Card.class)
+                                .setMaxResults(SCAN_CARDS).getResultList();
+                        entityManager.flush();
+                    });
+                }
+            } catch (RuntimeException e) {
+                errors.increment();
+            } finally {
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                latency.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                allocated.add(THREADS.getThreadAllocatedBytes(threadId) - bytes);
+                SecurityContextHolder.clearContext();
+            }
+        }
+    }
+    private static TransactionRequest transferRequest(LoadTestUser user, ThreadLocalRandom random) {
+        List<Long> cards = user.getCardIds();
+        int from = random.nextInt(cards.size());
+        int to = (from + 1 + random.nextInt(cards.size() - 1)) % cards.size();
+        TransactionRequest request = new TransactionRequest();
+        request.setFromCardId(cards.get(from));
+        request.setToCardId(cards.get(to));
+        request.setAmount(1.0);
+        return request;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.config;
+import com.example.bankcards.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+@Configuration
+@Slf4j
+public class ExceptionConfig {
+    public ExceptionConfig(@Value("${exceptions.stack-traces:false}") boolean stackTraces) {
+        BusinessException.setStackTraces(stackTraces);
+        if (stackTraces) {
+            log.info("Стек вызовов бизнес-исключений заполняется (exceptions.stack-traces=true)");
+        }
+    }
+}
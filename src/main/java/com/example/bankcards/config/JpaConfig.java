@@ -1,18 +1,38 @@
 package com.example.bankcards.config;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
 import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
 import org.hibernate.boot.model.naming.ImplicitNamingStrategyLegacyJpaImpl;
+import org.hibernate.cache.jcache.ConfigSettings;
 import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.sql.DataSource;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.OptionalLong;
 import lombok.extern.slf4j.Slf4j;
 @Configuration
 @Slf4j
 public class JpaConfig {
+    public static final String ROLES_REGION = "roles";
+    public static final String USERS_REGION = "users";
+    public static final String USER_ROLES_REGION = "users.roles";
+    public static final String USERNAMES_REGION = "users.username";
+    @Value("${jpa.statistics.enabled:true}")
+    private boolean statisticsEnabled;
+    @Value("${jpa.second-level-cache.enabled:true}")
+    private boolean secondLevelCacheEnabled;
+    @Value("${jpa.second-level-cache.users.max-size:10000}")
+    private long usersMaxSize;
+    @Value("${jpa.second-level-cache.users.ttl:5m}")
+    private Duration usersTtl;
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
@@ -24,8 +44,40 @@ public class JpaConfig {
                 new CamelCaseToUnderscoresNamingStrategy());
         jpaProperties.put(AvailableSettings.IMPLICIT_NAMING_STRATEGY,
                 new ImplicitNamingStrategyLegacyJpaImpl());
+        jpaProperties.put(AvailableSettings.GENERATE_STATISTICS, statisticsEnabled);
+        jpaProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, secondLevelCacheEnabled);
+        if (secondLevelCacheEnabled) {
+            jpaProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            jpaProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager());
+            jpaProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        }
         em.setJpaPropertyMap(jpaProperties);
-        log.info("EntityManagerFactory настроен с CamelCaseToUnderscoresNamingStrategy");
+        log.info("EntityManagerFactory настроен с CamelCaseToUnderscoresNamingStrategy, кэш второго уровня: {}",
+                secondLevelCacheEnabled ? "включен" : "выключен");
         return em;
     }
-}
\ No newline at end of file
+    /**
+     * Локальные ограниченные регионы кэша второго уровня. Роли не меняются и живут, пока их не вытеснят;
+     * пользователи, их роли и соответствие имени пользователю устаревают через {@code users.ttl} — это предел,
+     * на который другой узел может отстать от изменения пользователя.
+     */
+    private CacheManager secondLevelCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        createRegion(cacheManager, ROLES_REGION, 100, null);
+        createRegion(cacheManager, USERS_REGION, usersMaxSize, usersTtl);
+        createRegion(cacheManager, USER_ROLES_REGION, usersMaxSize, usersTtl);
+        createRegion(cacheManager, USERNAMES_REGION, usersMaxSize, usersTtl);
+        return cacheManager;
+    }
+    private static void createRegion(CacheManager cacheManager, String name, long maxSize, Duration ttl) {
+        if (cacheManager.getCache(name) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        cacheManager.createCache(name, configuration);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.bankcards.config;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private final Map<String, LongAdder> pinnedBySite = new ConcurrentHashMap<>();
+    private final LongAdder pinnedTotal = new LongAdder();
+    private RecordingStream stream;
+    @Value("${virtual-threads.pinning.threshold-ms:20}")
+    private long thresholdMs;
+    @Value("${virtual-threads.pinning.stack-depth:12}")
+    private int stackDepth;
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("JFR-мониторинг пиннинга виртуальных потоков запущен (порог {} мс)", thresholdMs);
+    }
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+    @Scheduled(fixedDelayString = "${virtual-threads.pinning.report-interval-ms:60000}")
+    public void report() {
+        if (pinnedBySite.isEmpty()) {
+            return;
+        }
+        StringBuilder report = new StringBuilder();
+        pinnedBySite.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .limit(10)
+                .forEach(entry -> report.append("\n  ").append(entry.getValue().sum()).append(" x ").append(entry.getKey()));
+        log.warn("Пиннинг виртуальных потоков: всего {} событий, топ мест:{}", pinnedTotal.sum(), report);
+    }
+    public Map<String, LongAdder> getPinnedBySite() {
+        return pinnedBySite;
+    }
+    public long getPinnedTotal() {
+        return pinnedTotal.sum();
+    }
+    private void onPinned(RecordedEvent event) {
+        pinnedTotal.increment();
+        String site = pinningSite(event.getStackTrace());
+        pinnedBySite.computeIfAbsent(site, key -> new LongAdder()).increment();
+        log.debug("Виртуальный поток закреплен на {} мс в {}", event.getDuration().toMillis(), site);
+    }
+    private String pinningSite(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "<нет стека>";
+        }
+        StringBuilder site = new StringBuilder();
+        int depth = 0;
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            if (depth > 0) {
+                site.append(" <- ");
+            }
+            site.append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber());
+            if (++depth >= stackDepth) {
+                break;
+            }
+        }
+        return site.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.config.replica;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+/**
+ * Запоминает время последней пишущей транзакции пользователя, чтобы в течение окна его чтения шли
+ * на primary и не видели реплику, еще не догнавшую собственные изменения пользователя.
+ */
+public class ReadYourWritesTracker {
+    private final long windowMillis;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    public ReadYourWritesTracker(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+    public void recordWrite(String username) {
+        if (username != null && windowMillis > 0) {
+            lastWrites.put(username, System.currentTimeMillis());
+        }
+    }
+    public boolean hasRecentWrite(String username) {
+        if (username == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(username);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - writtenAt < windowMillis) {
+            return true;
+        }
+        lastWrites.remove(username, writtenAt);
+        return false;
+    }
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        lastWrites.entrySet().removeIf(entry -> now - entry.getValue() >= windowMillis);
+    }
+    public int size() {
+        return lastWrites.size();
+    }
+    public static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
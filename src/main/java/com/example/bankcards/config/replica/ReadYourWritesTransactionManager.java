@@ -0,0 +1,19 @@
+package com.example.bankcards.config.replica;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+public class ReadYourWritesTransactionManager extends JpaTransactionManager {
+    private final transient ReadYourWritesTracker readYourWritesTracker;
+    public ReadYourWritesTransactionManager(EntityManagerFactory entityManagerFactory,
+                                            ReadYourWritesTracker readYourWritesTracker) {
+        super(entityManagerFactory);
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        super.doCommit(status);
+        if (!status.isReadOnly()) {
+            readYourWritesTracker.recordWrite(ReadYourWritesTracker.currentUsername());
+        }
+    }
+}
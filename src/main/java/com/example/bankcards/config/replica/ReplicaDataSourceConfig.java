@@ -0,0 +1,84 @@
+package com.example.bankcards.config.replica;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+/**
+ * Включается, когда задан {@code datasource.replicas.urls}. Бин {@code dataSource}, который получает
+ * {@link com.example.bankcards.config.JpaConfig}, становится ленивым прокси над маршрутизирующим источником;
+ * пулы primary и реплик настраиваются из {@code spring.datasource.hikari}.
+ */
+@Configuration
+@ConditionalOnExpression("!'${datasource.replicas.urls:}'.trim().isEmpty()")
+@Slf4j
+public class ReplicaDataSourceConfig {
+    @Value("${datasource.replicas.urls}")
+    private List<String> replicaUrls;
+    @Value("${datasource.replicas.username:}")
+    private String replicaUsername;
+    @Value("${datasource.replicas.password:}")
+    private String replicaPassword;
+    @Value("${datasource.replicas.max-lag-ms:1000}")
+    private long maxLagMillis;
+    @Value("${datasource.replicas.read-your-writes-window-ms:5000}")
+    private long readYourWritesWindowMillis;
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(readYourWritesWindowMillis);
+    }
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                                             ReadYourWritesTracker readYourWritesTracker) {
+        HikariDataSource primary = createPool(environment, "primary", properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), false);
+        String username = replicaUsername.isBlank() ? properties.determineUsername() : replicaUsername;
+        String password = replicaPassword.isBlank() ? properties.determinePassword() : replicaPassword;
+        List<ReplicaTarget> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "replica-" + i;
+            replicas.add(new ReplicaTarget(name, createPool(environment, name, replicaUrls.get(i).trim(), username, password, true)));
+        }
+        log.info("Маршрутизация read-only транзакций на {} реплик(и), допустимое отставание {} мс", replicas.size(), maxLagMillis);
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWritesTracker);
+    }
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource replicaRoutingDataSource,
+                                               ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replicaRoutingDataSource, readYourWritesTracker, maxLagMillis, meterRegistry);
+    }
+    @Bean
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                         ReadYourWritesTracker readYourWritesTracker) {
+        return new ReadYourWritesTransactionManager(entityManagerFactory, readYourWritesTracker);
+    }
+    private static HikariDataSource createPool(Environment environment, String name, String url,
+                                               String username, String password, boolean readOnly) {
+        HikariDataSource pool = new HikariDataSource();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName("bank-" + name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setReadOnly(readOnly);
+        return pool;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bankcards.config.replica;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+/**
+ * Периодически измеряет отставание каждой реплики и исключает из ротации те, что отстали больше
+ * {@code maxLagMillis} или недоступны. Если реплика получает WAL по потоковой репликации и проиграла весь
+ * полученный, отставание считается нулевым: иначе при простое primary время последней проигранной транзакции
+ * выглядело бы как лаг. Без активного WAL receiver совпадение LSN ничего не значит (реплика просто ничего
+ * не получает), и отставание считается от {@code pg_last_xact_replay_timestamp()}. Статус receiver виден
+ * только ролям с {@code pg_read_all_stats}; без этой роли используется та же оценка по времени.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private static final String LAG_QUERY = "SELECT pg_is_in_recovery(), " +
+            "EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming'), " +
+            "COALESCE(pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn(), false), " +
+            "EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000";
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final long maxLagMillis;
+    private boolean firstCheck = true;
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource, ReadYourWritesTracker readYourWritesTracker,
+                             long maxLagMillis, MeterRegistry meterRegistry) {
+        this.routingDataSource = routingDataSource;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.maxLagMillis = maxLagMillis;
+        for (ReplicaTarget replica : routingDataSource.getReplicas()) {
+            Gauge.builder("bank.datasource.replica.lag", replica, ReplicaTarget::getLagMillis)
+                    .description("Отставание реплики, мс (-1 — недоступна)")
+                    .baseUnit("milliseconds")
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+            Gauge.builder("bank.datasource.replica.available", replica, target -> target.isAvailable() ? 1 : 0)
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+        }
+        checkReplicas();
+    }
+    @Scheduled(fixedDelayString = "${datasource.replicas.lag-check-interval-ms:1000}")
+    public void checkReplicas() {
+        for (ReplicaTarget replica : routingDataSource.getReplicas()) {
+            boolean available;
+            boolean inRecovery = false;
+            long lagMillis;
+            try (Connection connection = replica.getDataSource().getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                inRecovery = rs.getBoolean(1);
+                double sinceReplayMillis = rs.getDouble(4);
+                lagMillis = lagMillis(rs.getBoolean(2), rs.getBoolean(3), rs.wasNull() ? null : sinceReplayMillis);
+                available = inRecovery && lagMillis >= 0 && lagMillis <= maxLagMillis;
+            } catch (Exception e) {
+                lagMillis = -1;
+                available = false;
+                log.debug("Проверка реплики {} завершилась ошибкой: {}", replica.getName(), e.getMessage());
+            }
+            if (firstCheck || available != replica.isAvailable()) {
+                if (available) {
+                    log.info("Реплика {} в ротации (отставание {} мс)", replica.getName(), lagMillis);
+                } else if (lagMillis >= 0 && !inRecovery) {
+                    log.warn("Реплика {} не находится в режиме восстановления и исключена из ротации", replica.getName());
+                } else {
+                    log.warn("Реплика {} исключена из ротации (отставание {} мс, предел {} мс)",
+                            replica.getName(), lagMillis, maxLagMillis);
+                }
+            }
+            replica.setLagMillis(lagMillis);
+            replica.setAvailable(available);
+        }
+        firstCheck = false;
+        readYourWritesTracker.evictExpired();
+    }
+    /**
+     * Отставание в миллисекундах или -1, если его нельзя оценить: receiver не работает, а реплика
+     * еще не проиграла ни одной транзакции.
+     */
+    static long lagMillis(boolean streaming, boolean replayedAllReceived, Double sinceLastReplayMillis) {
+        if (streaming && replayedAllReceived) {
+            return 0;
+        }
+        if (sinceLastReplayMillis == null) {
+            return streaming ? 0 : -1;
+        }
+        return Math.max(0, Math.round(sinceLastReplayMillis));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.config.replica;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * Направляет read-only транзакции на доступные реплики по кругу, остальное — на primary.
+ * Ключ вычисляется при получении физического соединения, поэтому источник должен быть обернут
+ * в {@code LazyConnectionDataSourceProxy}: к первому запросу флаг read-only транзакции уже выставлен.
+ * Read-only транзакция с именем {@link #PRIMARY_READ} всегда идет на primary: так читают данные,
+ * которые затем кэшируются.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    public static final String PRIMARY = "primary";
+    public static final String PRIMARY_READ = "primary-read";
+    private final HikariDataSource primary;
+    private final List<ReplicaTarget> replicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<ReplicaTarget> replicas,
+                                    ReadYourWritesTracker readYourWritesTracker) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWritesTracker = readYourWritesTracker;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach(replica -> targets.put(replica.getName(), replica.getDataSource()));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+    public List<ReplicaTarget> getReplicas() {
+        return replicas;
+    }
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || PRIMARY_READ.equals(TransactionSynchronizationManager.getCurrentTransactionName())) {
+            return PRIMARY;
+        }
+        if (readYourWritesTracker.hasRecentWrite(ReadYourWritesTracker.currentUsername())) {
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            ReplicaTarget replica = replicas.get((start + i) % size);
+            if (replica.isAvailable()) {
+                return replica.getName();
+            }
+        }
+        log.debug("Нет доступных реплик, read-only транзакция выполняется на primary");
+        return PRIMARY;
+    }
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.getDataSource().close());
+        primary.close();
+    }
+}
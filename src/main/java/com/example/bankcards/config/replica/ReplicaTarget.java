@@ -0,0 +1,15 @@
+package com.example.bankcards.config.replica;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+@Getter
+@RequiredArgsConstructor
+public class ReplicaTarget {
+    private final String name;
+    private final HikariDataSource dataSource;
+    @Setter
+    private volatile boolean available;
+    @Setter
+    private volatile long lagMillis = -1;
+}
@@ -1,8 +1,16 @@
 package com.example.bankcards.controller;
+import com.example.bankcards.dto.card.BulkCardStatusRequest;
+import com.example.bankcards.dto.card.BulkCardStatusResponse;
 import com.example.bankcards.dto.card.CardRequest;
 import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.dto.card.CardSearchFilter;
 import com.example.bankcards.dto.card.CardUpdateRequest;
+import com.example.bankcards.repository.CardRepositoryCustom;
 import com.example.bankcards.service.CardService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,13 +20,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.List;
 import static io.swagger.v3.oas.annotations.enums.SecuritySchemeType.HTTP;
 @SecurityScheme(
@@ -35,7 +50,16 @@ import static io.swagger.v3.oas.annotations.enums.SecuritySchemeType.HTTP;
 @RequiredArgsConstructor
 @Slf4j
 public class AdminCardController {
+    static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
+    static final String NEXT_AFTER_SCORE_HEADER = "X-Next-After-Score";
     private final CardService cardService;
+    private final ObjectMapper objectMapper;
+    private ObjectWriter cardWriter;
+    @PostConstruct
+    void init() {
+        // по умолчанию ObjectMapper сбрасывает буфер после каждого значения; при выгрузке это запись в сокет на каждую карту
+        cardWriter = objectMapper.writerFor(CardResponse.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
     @PostMapping("/cards")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
@@ -66,18 +90,99 @@ public class AdminCardController {
     @GetMapping("/cards")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
-            summary = "Получить все карты (Админ)",
-            description = "Возвращает список всех карт в системе",
+            summary = "Получить карты (Админ)",
+            description = "Возвращает страницу карт по возрастанию ID, начиная после afterId. Если страница заполнена, " +
+                    "ID для следующего запроса передается в заголовке " + NEXT_AFTER_ID_HEADER,
+            parameters = {
+                    @Parameter(name = "afterId", description = "ID последней карты предыдущей страницы (0 - с начала)"),
+                    @Parameter(name = "limit", description = "Сколько карт вернуть")
+            },
             responses = {
                     @ApiResponse(responseCode = "200", description = "Список карт получен",
                             content = @Content(schema = @Schema(implementation = CardResponse[].class))),
+                    @ApiResponse(responseCode = "400", description = "Недопустимый размер страницы"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<List<CardResponse>> getAllCards(
+            @Valid @ParameterObject CardSearchFilter filter,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("GET /api/admin/cards - Запрос карт администратором после ID {}, limit: {}", afterId, limit);
+        List<CardResponse> cards = cardService.findCards(filter, afterId, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (cards.size() == limit) {
+            response.header(NEXT_AFTER_ID_HEADER, String.valueOf(cards.get(cards.size() - 1).getId()));
+        }
+        return response.body(cards);
+    }
+    @GetMapping("/cards/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Поиск карт (Админ)",
+            description = "Ищет карты по части имени владельца (без учета регистра) и/или последним 4 цифрам номера " +
+                    "с теми же фильтрами, что у списка карт. Совпадения с начала имени идут первыми, дальше по похожести. " +
+                    "В выдачу попадают карты не больше cards.search.max-names лучших имен. Если страница заполнена, ключ " +
+                    "следующей передается в заголовках " + NEXT_AFTER_SCORE_HEADER + " и " + NEXT_AFTER_ID_HEADER,
+            parameters = {
+                    @Parameter(name = "q", description = "Часть имени владельца, от 3 символов", example = "Ivanov"),
+                    @Parameter(name = "afterScore", description = "Оценка последней карты предыдущей страницы"),
+                    @Parameter(name = "afterId", description = "ID последней карты предыдущей страницы"),
+                    @Parameter(name = "limit", description = "Сколько карт вернуть")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Найденные карты",
+                            content = @Content(schema = @Schema(implementation = CardResponse[].class))),
+                    @ApiResponse(responseCode = "400", description = "Нет условия поиска или недопустимые параметры"),
                     @ApiResponse(responseCode = "403", description = "Доступ запрещен")
             }
     )
-    public ResponseEntity<List<CardResponse>> getAllCards() {
-        log.info("GET /api/admin/cards - Запрос всех карт администратором");
-        List<CardResponse> cards = cardService.getAllCards();
-        return ResponseEntity.ok(cards);
+    public ResponseEntity<List<CardResponse>> searchCards(
+            @RequestParam(required = false) String q,
+            @Valid @ParameterObject CardSearchFilter filter,
+            @RequestParam(required = false) BigDecimal afterScore,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("GET /api/admin/cards/search - Поиск карт администратором, limit: {}", limit);
+        List<CardRepositoryCustom.CardSearchHit> hits = cardService.searchCards(q, filter, afterScore, afterId, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (hits.size() == limit) {
+            CardRepositoryCustom.CardSearchHit last = hits.get(hits.size() - 1);
+            response.header(NEXT_AFTER_SCORE_HEADER, last.score().toPlainString())
+                    .header(NEXT_AFTER_ID_HEADER, String.valueOf(last.card().getId()));
+        }
+        return response.body(hits.stream().map(CardRepositoryCustom.CardSearchHit::card).toList());
+    }
+    @GetMapping(value = "/cards/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Выгрузить карты (Админ)",
+            description = "Отдает все карты, подходящие под фильтры, одним JSON-массивом. Карты читаются из базы курсором " +
+                    "и пишутся в ответ по мере чтения, без сборки списка в памяти. Выгрузка ограничена " +
+                    "spring.mvc.async.request-timeout",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Выгрузка карт",
+                            content = @Content(schema = @Schema(implementation = CardResponse[].class))),
+                    @ApiResponse(responseCode = "400", description = "Недопустимые фильтры"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> exportCards(@Valid @ParameterObject CardSearchFilter filter) {
+        log.info("GET /api/admin/cards/export - Выгрузка карт администратором");
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                cardService.exportCards(filter, card -> {
+                    try {
+                        cardWriter.writeValue(generator, card);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
     @PutMapping("/cards/{id}")
     @PreAuthorize("hasRole('ADMIN')")
@@ -167,4 +272,33 @@ public class AdminCardController {
         CardResponse activatedCard = cardService.activateCard(id);
         return ResponseEntity.ok(activatedCard);
     }
-}
\ No newline at end of file
+    @PostMapping("/cards/bulk/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Массово сменить статус карт (Админ)",
+            description = "Блокирует, активирует или помечает истекшими все карты, подходящие под фильтр (userId, ids, statuses, " +
+                    "срок действия). Переходы те же, что у операций над одной картой: блокируется только активная карта, " +
+                    "активируется только заблокированная, истекшими помечаются карты со сроком раньше текущего месяца. " +
+                    "Карты обновляются пачками по chunkSize, в ответе — прогресс по каждой пачке",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = BulkCardStatusRequest.class),
+                            examples = @ExampleObject(
+                                    value = "{\"action\": \"BLOCK\", \"userId\": 2}"
+                            )
+                    )
+            ),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Операция выполнена",
+                            content = @Content(schema = @Schema(implementation = BulkCardStatusResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Нет фильтра или неверные параметры"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<BulkCardStatusResponse> bulkUpdateStatus(@Valid @RequestBody BulkCardStatusRequest request) {
+        log.info("POST /api/admin/cards/bulk/status - Массовая операция {} администратором", request.getAction());
+        return ResponseEntity.ok(cardService.bulkUpdateStatus(request));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.bankcards.controller;
+import com.example.bankcards.dto.profiling.ProfilingRequest;
+import com.example.bankcards.dto.profiling.ProfilingStatusResponse;
+import com.example.bankcards.dto.profiling.ProfilingSummaryResponse;
+import com.example.bankcards.service.ProfilingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import java.nio.file.Path;
+@RestController
+@RequestMapping("/api/admin/profiling")
+@Tag(name = "Профилирование (Админ)", description = "Запись JDK Flight Recorder без перезапуска узла")
+@SecurityRequirement(name = "bearerAuth")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminProfilingController {
+    private final ProfilingService profilingService;
+    @PostMapping("/recordings")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Запустить JFR-запись",
+            description = "Запускает запись с профилем default или profile на заданное число секунд; одновременно выполняется только одна запись",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ProfilingRequest.class),
+                            examples = @ExampleObject(value = "{\"profile\": \"profile\", \"durationSeconds\": 60}")
+                    )
+            ),
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Запись запущена"),
+                    @ApiResponse(responseCode = "409", description = "Другая запись еще выполняется"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<ProfilingStatusResponse> startRecording(@Valid @RequestBody ProfilingRequest request) {
+        log.info("POST /api/admin/profiling/recordings - Запуск JFR-записи на {} с", request.getDurationSeconds());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(profilingService.start(request));
+    }
+    @GetMapping("/recordings/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Статус JFR-записи", responses = {
+            @ApiResponse(responseCode = "200", description = "Статус получен"),
+            @ApiResponse(responseCode = "404", description = "Запись не найдена")
+    })
+    public ResponseEntity<ProfilingStatusResponse> getRecording(
+            @Parameter(description = "ID записи", example = "1", required = true) @PathVariable Long id) {
+        return ResponseEntity.ok(profilingService.getStatus(id));
+    }
+    @PostMapping("/recordings/{id}/stop")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Остановить JFR-запись досрочно", responses = {
+            @ApiResponse(responseCode = "200", description = "Запись остановлена"),
+            @ApiResponse(responseCode = "404", description = "Запись не найдена")
+    })
+    public ResponseEntity<ProfilingStatusResponse> stopRecording(
+            @Parameter(description = "ID записи", example = "1", required = true) @PathVariable Long id) {
+        log.info("POST /api/admin/profiling/recordings/{}/stop - Остановка JFR-записи", id);
+        return ResponseEntity.ok(profilingService.stop(id));
+    }
+    @GetMapping("/recordings/{id}/file")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Скачать .jfr файл", responses = {
+            @ApiResponse(responseCode = "200", description = "Файл записи"),
+            @ApiResponse(responseCode = "404", description = "Запись не найдена"),
+            @ApiResponse(responseCode = "409", description = "Запись еще выполняется")
+    })
+    public ResponseEntity<Resource> downloadRecording(
+            @Parameter(description = "ID записи", example = "1", required = true) @PathVariable Long id) {
+        Path file = profilingService.getRecordingFile(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(file));
+    }
+    @GetMapping("/recordings/{id}/summary")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Сводка JFR-записи",
+            description = "Горячие методы, места аллокаций, конкуренция за блокировки, паузы GC и события приложения",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Сводка построена"),
+                    @ApiResponse(responseCode = "404", description = "Запись не найдена"),
+                    @ApiResponse(responseCode = "409", description = "Запись еще выполняется")
+            }
+    )
+    public ResponseEntity<ProfilingSummaryResponse> getSummary(
+            @Parameter(description = "ID записи", example = "1", required = true) @PathVariable Long id,
+            @Parameter(description = "Количество строк в каждом разделе", example = "20")
+            @RequestParam(defaultValue = "20") int top) {
+        return ResponseEntity.ok(profilingService.summarize(id, Math.max(1, Math.min(top, 200))));
+    }
+}
@@ -1,4 +1,5 @@
 package com.example.bankcards.controller;
+import com.example.bankcards.dto.card.CardBalanceResponse;
 import com.example.bankcards.dto.card.CardResponse;
 import com.example.bankcards.dto.transaction.TransactionRequest;
 import com.example.bankcards.dto.transaction.TransactionResponse;
@@ -8,6 +9,7 @@ import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.CardService;
 import com.example.bankcards.service.TransactionService;
+import com.example.bankcards.util.CardUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -24,6 +26,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -31,6 +34,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import java.util.List;
 import java.util.Map;
 import static io.swagger.v3.oas.annotations.enums.SecuritySchemeType.HTTP;
 @SecurityScheme(
@@ -138,7 +142,40 @@ public class UserCardController {
         log.info("GET /api/user/cards/{}/balance - Запрос баланса карты пользователем ID: {}", id, currentUserId);
         CardResponse card = cardService.getCardById(id);
         Map<String, Double> response = Map.of("balance", card.getBalance());
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(CardUtils.balanceETag(id, card.getVersion()))
+                .body(response);
+    }
+    @GetMapping("/cards/balances")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(
+            summary = "Просмотреть балансы нескольких своих карт (только юзер)",
+            description = "Возвращает балансы указанных карт текущего пользователя одним запросом. Чужие и несуществующие ID " +
+                    "в ответ не попадают. Поддерживает ETag/If-None-Match: если балансы не менялись, возвращается 304 без тела",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Балансы получены",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    examples = @ExampleObject(
+                                            value = "[{\"id\": 1, \"balance\": 1000.5}, {\"id\": 2, \"balance\": 20.0}]"
+                                    )
+                            )),
+                    @ApiResponse(responseCode = "304", description = "Балансы не изменились с указанного ETag"),
+                    @ApiResponse(responseCode = "400", description = "Пустой список или слишком много ID"),
+                    @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован")
+            }
+    )
+    public ResponseEntity<List<CardBalanceResponse>> getCardBalances(
+            @Parameter(description = "ID карт через запятую", example = "1,2,3", required = true)
+            @RequestParam List<Long> ids) {
+        Long currentUserId = getCurrentUserId();
+        log.debug("GET /api/user/cards/balances - Запрос балансов {} карт пользователем ID: {}", ids.size(), currentUserId);
+        List<CardBalanceResponse> balances = cardService.getCardBalances(currentUserId, ids);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(CardUtils.balancesETag(balances))
+                .body(balances);
     }
     @PostMapping("/transactions/transfer")
     @PreAuthorize("hasRole('USER')")
@@ -166,6 +203,9 @@ public class UserCardController {
             throw new AuthenticationException("Пользователь не аутентифицирован");
         }
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        if (userDetails instanceof User user && user.getId() != null) {
+            return user.getId();
+        }
         User user = userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new UserNotFoundException("Пользователь не найден"));
         return user.getId();
@@ -0,0 +1,32 @@
+package com.example.bankcards.dto.card;
+import com.example.bankcards.entity.Card;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import java.time.YearMonth;
+import java.util.List;
+/**
+ * Массовая смена статуса карт. Фильтры объединяются через AND; пустые не применяются.
+ */
+@Data
+public class BulkCardStatusRequest {
+    @NotNull(message = "Действие обязательно")
+    private Action action;
+    private Long userId;
+    private List<Long> ids;
+    private List<Card.Status> statuses;
+    @JsonFormat(pattern = "yyyy-MM")
+    private YearMonth expiresFrom;
+    @JsonFormat(pattern = "yyyy-MM")
+    private YearMonth expiresTo;
+    @Min(value = 1, message = "Размер пачки должен быть положительным")
+    @Max(value = 50000, message = "Размер пачки не должен превышать 50000")
+    private Integer chunkSize;
+    public enum Action {
+        BLOCK,
+        ACTIVATE,
+        EXPIRE
+    }
+}
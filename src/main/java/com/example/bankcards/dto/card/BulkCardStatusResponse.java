@@ -0,0 +1,22 @@
+package com.example.bankcards.dto.card;
+import com.example.bankcards.entity.Card;
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+@Data
+public class BulkCardStatusResponse {
+    private BulkCardStatusRequest.Action action;
+    private Card.Status targetStatus;
+    private long scanned;
+    private long updated;
+    private long elapsedMs;
+    private List<Chunk> chunks = new ArrayList<>();
+    @Data
+    public static class Chunk {
+        private int number;
+        private Long lastId;
+        private int scanned;
+        private int updated;
+        private long elapsedMs;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.dto.card;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardBalanceResponse {
+    private Long id;
+    private Double balance;
+    @JsonIgnore
+    private Long version;
+}
@@ -1,9 +1,12 @@
 package com.example.bankcards.dto.card;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.example.bankcards.entity.Card;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.YearMonth;
 @Data
+@NoArgsConstructor
 public class CardResponse {
     private Long id;
     private String maskedCardNumber; 
@@ -13,6 +16,20 @@ public class CardResponse {
     private Card.Status status;
     private Double balance;
     private Long userId;
+    @JsonIgnore
+    private Long version;
+    // используется JPQL-проекцией CardRepository.findCardResponsesByUserId
+    public CardResponse(Long id, String encryptedCardNumber, String ownerName, YearMonth expirationDate,
+                        Card.Status status, Double balance, Long userId, Long version) {
+        this.id = id;
+        this.maskedCardNumber = maskCardNumber(encryptedCardNumber);
+        this.ownerName = ownerName;
+        this.expirationDate = expirationDate;
+        this.status = status;
+        this.balance = balance;
+        this.userId = userId;
+        this.version = version;
+    }
     public static String maskCardNumber(String encryptedCardNumber) {
         if (encryptedCardNumber == null || encryptedCardNumber.length() < 4) {
             return "**** **** **** ****";
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.card;
+import com.example.bankcards.entity.Card;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+import java.time.YearMonth;
+/**
+ * Фильтры списка карт администратора. Фильтры объединяются через AND; пустые не применяются.
+ */
+@Data
+public class CardSearchFilter {
+    private Card.Status status;
+    private Long userId;
+    private String ownerNamePrefix;
+    @Pattern(regexp = "\\d{4}", message = "Нужны последние 4 цифры номера карты")
+    private String last4;
+    @DateTimeFormat(pattern = "yyyy-MM")
+    private YearMonth expiresFrom;
+    @DateTimeFormat(pattern = "yyyy-MM")
+    private YearMonth expiresTo;
+}
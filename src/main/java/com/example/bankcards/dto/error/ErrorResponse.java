@@ -0,0 +1,31 @@
+package com.example.bankcards.dto.error;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.Data;
+import org.springframework.http.HttpStatus;
+import java.time.LocalDateTime;
+import java.util.Map;
+/**
+ * Тело ответа об ошибке. Типизированный класс вместо {@code Map<String, Object>}: Jackson строит сериализатор
+ * один раз на класс, а не ищет его для каждого значения карты.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"timestamp", "status", "error", "message", "path", "rule", "fieldErrors"})
+public class ErrorResponse {
+    private LocalDateTime timestamp;
+    private int status;
+    private String error;
+    private String message;
+    private String path;
+    private String rule;
+    private Map<String, String> fieldErrors;
+    public static ErrorResponse of(HttpStatus status, String error, String message) {
+        ErrorResponse response = new ErrorResponse();
+        response.setTimestamp(LocalDateTime.now());
+        response.setStatus(status.value());
+        response.setError(error);
+        response.setMessage(message);
+        return response;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.dto.profiling;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HotspotEntry {
+    private String name;
+    private long count;
+    private Long totalBytes;
+    private Double totalMillis;
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.dto.profiling;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+@Data
+public class ProfilingRequest {
+    @Pattern(regexp = "default|profile", message = "Профиль должен быть default или profile")
+    private String profile = "profile";
+    @NotNull(message = "Длительность обязательна")
+    @Min(value = 1, message = "Длительность должна быть не менее 1 секунды")
+    @Max(value = 600, message = "Длительность не должна превышать 600 секунд")
+    private Integer durationSeconds;
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.dto.profiling;
+import lombok.Data;
+import java.time.Instant;
+@Data
+public class ProfilingStatusResponse {
+    private Long id;
+    private String profile;
+    private String state;
+    private Instant startedAt;
+    private Integer durationSeconds;
+    private Long fileSizeBytes;
+}
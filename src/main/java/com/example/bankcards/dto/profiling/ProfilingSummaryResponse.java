@@ -0,0 +1,15 @@
+package com.example.bankcards.dto.profiling;
+import lombok.Data;
+import java.util.List;
+@Data
+public class ProfilingSummaryResponse {
+    private Long recordingId;
+    private long totalEvents;
+    private List<HotspotEntry> hotMethods;
+    private List<HotspotEntry> allocationHotspots;
+    private List<HotspotEntry> lockContention;
+    private long gcCount;
+    private double gcTotalPauseMillis;
+    private double gcMaxPauseMillis;
+    private List<HotspotEntry> applicationEvents;
+}
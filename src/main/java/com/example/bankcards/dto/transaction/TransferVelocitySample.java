@@ -0,0 +1,15 @@
+package com.example.bankcards.dto.transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferVelocitySample {
+    private Long fromCardId;
+    private Long userId;
+    private Long toCardId;
+    private Double amount;
+    private LocalDateTime timestamp;
+}
@@ -5,17 +5,17 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import java.time.YearMonth;
-import com.example.bankcards.entity.Transaction;
-import java.util.ArrayList;
-import java.util.List;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.hibernate.annotations.SQLRestriction;
 @Entity
 @Table(name = "cards")
+// deleted_at намеренно не отображается в поле: иначе save() устаревшей сущности мог бы снять отметку об удалении
+@SQLRestriction("deleted_at IS NULL")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -29,6 +29,9 @@ public class Card {
     @NotBlank
     @Column(unique = true, nullable = false)
     private String encryptedCardNumber;
+    // последние 4 цифры номера в открытом виде: по ним администратор ищет карту, не расшифровывая номера
+    @Column(length = 4)
+    private String last4;
     @NotBlank
     @Size(max = 50)
     @Column(nullable = false)
@@ -44,14 +47,15 @@ public class Card {
     @NotNull
     @Column(nullable = false)
     private Double balance = 0.0;
+    @Version
+    @Column(nullable = false)
+    private Long version;
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
-    @OneToMany(mappedBy = "fromCard", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
-    private List<Transaction> transactionsFrom = new ArrayList<>();
-    @OneToMany(mappedBy = "toCard", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
-    private List<Transaction> transactionsTo = new ArrayList<>();
+    // коллекций переводов у карты нет: переводы читаются запросами TransactionRepository,
+    // а при удалении строки карты их удаляет ON DELETE CASCADE в БД
     public enum Status {
         ACTIVE,
         BLOCKED,
@@ -1,9 +1,13 @@
 package com.example.bankcards.entity;
 import org.springframework.security.core.GrantedAuthority;
+import com.example.bankcards.config.JpaConfig;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 @Entity
 @Table(name = "roles")
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = JpaConfig.ROLES_REGION)
 @Data 
 public class Role implements GrantedAuthority {
     @Id
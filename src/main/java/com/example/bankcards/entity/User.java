@@ -13,8 +13,17 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import com.example.bankcards.config.JpaConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.SQLRestriction;
 @Entity
 @Table(name = "users")
+@SQLRestriction("deleted_at IS NULL")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = JpaConfig.USERS_REGION)
+@NaturalIdCache(region = JpaConfig.USERNAMES_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -27,11 +36,13 @@ public class User implements UserDetails {
     private Long id;
     @NotBlank
     @Size(max = 50)
+    @NaturalId(mutable = true)
     @Column(unique = true, nullable = false)
     private String username;
     @NotBlank
     @Column(nullable = false)
     private String password;
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = JpaConfig.USER_ROLES_REGION)
     @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
             name = "users_roles",
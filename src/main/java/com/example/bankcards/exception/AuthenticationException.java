@@ -4,7 +4,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import lombok.Getter;
 @Getter
 @ResponseStatus(HttpStatus.UNAUTHORIZED)
-public class AuthenticationException extends RuntimeException {
+public class AuthenticationException extends BusinessException {
     public AuthenticationException(String message) {
         super(message);
     }
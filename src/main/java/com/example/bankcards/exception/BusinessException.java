@@ -0,0 +1,21 @@
+package com.example.bankcards.exception;
+/**
+ * Базовый класс исключений бизнес-логики. Их вызывает некорректный запрос клиента, а не ошибка в коде, поэтому
+ * стек вызовов (через прокси Spring и цепочку фильтров) по умолчанию не заполняется. Для отладки заполнение
+ * включается свойством {@code exceptions.stack-traces}.
+ */
+public abstract class BusinessException extends RuntimeException {
+    private static volatile boolean stackTraces;
+    protected BusinessException(String message) {
+        this(message, null);
+    }
+    protected BusinessException(String message, Throwable cause) {
+        super(message, cause, false, stackTraces);
+    }
+    public static boolean isStackTraces() {
+        return stackTraces;
+    }
+    public static void setStackTraces(boolean enabled) {
+        stackTraces = enabled;
+    }
+}
@@ -2,7 +2,7 @@ package com.example.bankcards.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 @ResponseStatus(HttpStatus.NOT_FOUND)
-public class CardNotFoundException extends RuntimeException {
+public class CardNotFoundException extends BusinessException {
     public CardNotFoundException(String message) {
         super(message);
     }
@@ -2,7 +2,7 @@ package com.example.bankcards.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 @ResponseStatus(HttpStatus.CONFLICT)
-public class CardNumberAlreadyExistsException extends RuntimeException {
+public class CardNumberAlreadyExistsException extends BusinessException {
     public CardNumberAlreadyExistsException(String message) {
         super(message);
     }
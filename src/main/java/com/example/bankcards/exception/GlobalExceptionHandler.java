@@ -1,7 +1,12 @@
 package com.example.bankcards.exception;
+import com.example.bankcards.dto.error.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
@@ -10,79 +15,100 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 @RestControllerAdvice
+@RequiredArgsConstructor
 @Slf4j
 public class GlobalExceptionHandler {
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, Counter> exceptionCounters = new ConcurrentHashMap<>();
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public Map<String, Object> handleValidationExceptions(MethodArgumentNotValidException ex) {
+    public ErrorResponse handleValidationExceptions(MethodArgumentNotValidException ex) {
+        countException(ex);
         log.warn("Validation error: {}", ex.getMessage());
-        Map<String, Object> errors = new HashMap<>();
-        errors.put("timestamp", LocalDateTime.now());
-        errors.put("status", HttpStatus.BAD_REQUEST.value());
-        errors.put("error", "Validation Error");
-        errors.put("message", "Validation failed");
         Map<String, String> fieldErrors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
             String errorMessage = error.getDefaultMessage();
             fieldErrors.put(fieldName, errorMessage);
         });
-        errors.put("fieldErrors", fieldErrors);
-        return errors;
+        ErrorResponse response = ErrorResponse.of(HttpStatus.BAD_REQUEST, "Validation Error", "Validation failed");
+        response.setFieldErrors(fieldErrors);
+        return response;
     }
     @ExceptionHandler({AuthenticationException.class, BadCredentialsException.class, InvalidTokenException.class})
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
-    public Map<String, Object> handleAuthenticationException(Exception ex) {
+    public ErrorResponse handleAuthenticationException(Exception ex) {
+        countException(ex);
         log.warn("Authentication failed: {}", ex.getMessage());
-        return createErrorResponse(HttpStatus.UNAUTHORIZED, "Authentication failed", ex.getMessage());
+        return errorResponse(HttpStatus.UNAUTHORIZED, "Authentication failed", ex.getMessage());
     }
     @ExceptionHandler(AccessDeniedException.class)
     @ResponseStatus(HttpStatus.FORBIDDEN)
-    public Map<String, Object> handleAccessDeniedException(AccessDeniedException ex) {
+    public ErrorResponse handleAccessDeniedException(AccessDeniedException ex) {
+        countException(ex);
         log.warn("Access denied: {}", ex.getMessage());
-        return createErrorResponse(HttpStatus.FORBIDDEN, "Access denied", ex.getMessage());
+        return errorResponse(HttpStatus.FORBIDDEN, "Access denied", ex.getMessage());
     }
-    @ExceptionHandler({UserNotFoundException.class, CardNotFoundException.class})
+    @ExceptionHandler({UserNotFoundException.class, CardNotFoundException.class, RecordingNotFoundException.class})
     @ResponseStatus(HttpStatus.NOT_FOUND)
-    public Map<String, Object> handleNotFoundException(RuntimeException ex) {
+    public ErrorResponse handleNotFoundException(RuntimeException ex) {
+        countException(ex);
         log.warn("Resource not found: {}", ex.getMessage());
-        return createErrorResponse(HttpStatus.NOT_FOUND, "Resource not found", ex.getMessage());
+        return errorResponse(HttpStatus.NOT_FOUND, "Resource not found", ex.getMessage());
     }
-    @ExceptionHandler({CardNumberAlreadyExistsException.class, UsernameAlreadyExistsException.class})
+    @ExceptionHandler({CardNumberAlreadyExistsException.class, UsernameAlreadyExistsException.class,
+            ProfilingInProgressException.class, ObjectOptimisticLockingFailureException.class})
     @ResponseStatus(HttpStatus.CONFLICT)
-    public Map<String, Object> handleConflictException(RuntimeException ex) {
+    public ErrorResponse handleConflictException(RuntimeException ex) {
+        countException(ex);
         log.error("Conflict error: {}", ex.getMessage());
-        return createErrorResponse(HttpStatus.CONFLICT, "Conflict", ex.getMessage());
+        return errorResponse(HttpStatus.CONFLICT, "Conflict", ex.getMessage());
     }
     @ExceptionHandler({InvalidCardOperationException.class, NegativeBalanceException.class, InvalidRoleException.class})
     @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public Map<String, Object> handleBadRequestException(RuntimeException ex) {
+    public ErrorResponse handleBadRequestException(RuntimeException ex) {
+        countException(ex);
         log.warn("Bad request: {}", ex.getMessage());
-        return createErrorResponse(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage());
+        return errorResponse(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage());
     }
     @ExceptionHandler({InsufficientFundsException.class, SameCardTransferException.class})
     @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public Map<String, Object> handleTransactionBadRequestException(RuntimeException ex) {
+    public ErrorResponse handleTransactionBadRequestException(RuntimeException ex) {
+        countException(ex);
         log.warn("Transaction error: {}", ex.getMessage());
-        return createErrorResponse(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage());
+        return errorResponse(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage());
+    }
+    @ExceptionHandler(VelocityLimitExceededException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleVelocityLimitExceededException(VelocityLimitExceededException ex) {
+        countException(ex);
+        log.warn("Velocity limit exceeded ({}): {}", ex.getRule(), ex.getMessage());
+        ErrorResponse response = errorResponse(HttpStatus.TOO_MANY_REQUESTS, "Velocity limit exceeded", ex.getMessage());
+        response.setRule(ex.getRule());
+        return response;
     }
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
-    public Map<String, Object> handleGenericException(Exception ex) {
+    public ErrorResponse handleGenericException(Exception ex) {
+        countException(ex);
         log.error("Unexpected error occurred: ", ex);
-        return createErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", "An unexpected error occurred");
+        return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", "An unexpected error occurred");
     }
-    private Map<String, Object> createErrorResponse(HttpStatus status, String error, String message) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", status.value());
-        response.put("error", error);
-        response.put("message", message);
-        response.put("path", "");
+    // пустой path у всех ответов, кроме ошибок валидации, — как в прежнем формате тела
+    private static ErrorResponse errorResponse(HttpStatus status, String error, String message) {
+        ErrorResponse response = ErrorResponse.of(status, error, message);
+        response.setPath("");
         return response;
     }
+    private void countException(Exception ex) {
+        exceptionCounters.computeIfAbsent(ex.getClass(), type -> Counter.builder("bank.exceptions")
+                        .description("Исключения, обработанные GlobalExceptionHandler")
+                        .tag("type", type.getSimpleName())
+                        .register(meterRegistry))
+                .increment();
+    }
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 package com.example.bankcards.exception;
-public class InsufficientFundsException extends RuntimeException {
+public class InsufficientFundsException extends BusinessException {
     public InsufficientFundsException(String message) {
         super(message);
     }
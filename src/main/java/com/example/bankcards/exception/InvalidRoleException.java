@@ -2,7 +2,7 @@ package com.example.bankcards.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 @ResponseStatus(HttpStatus.BAD_REQUEST)
-public class InvalidRoleException extends RuntimeException {
+public class InvalidRoleException extends BusinessException {
     public InvalidRoleException(String message) {
         super(message);
     }
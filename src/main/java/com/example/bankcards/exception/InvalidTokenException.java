@@ -4,7 +4,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import lombok.Getter;
 @Getter
 @ResponseStatus(HttpStatus.UNAUTHORIZED)
-public class InvalidTokenException extends RuntimeException {
+public class InvalidTokenException extends BusinessException {
     public InvalidTokenException(String message) {
         super(message);
     }
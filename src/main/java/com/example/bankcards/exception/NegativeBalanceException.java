@@ -2,7 +2,7 @@ package com.example.bankcards.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 @ResponseStatus(HttpStatus.BAD_REQUEST)
-public class NegativeBalanceException extends RuntimeException {
+public class NegativeBalanceException extends BusinessException {
     public NegativeBalanceException(String message) {
         super(message);
     }
@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ProfilingInProgressException extends BusinessException {
+    public ProfilingInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class RecordingNotFoundException extends BusinessException {
+    public RecordingNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,5 @@
 package com.example.bankcards.exception;
-public class SameCardTransferException extends RuntimeException {
+public class SameCardTransferException extends BusinessException {
     public SameCardTransferException(String message) {
         super(message);
     }
@@ -4,7 +4,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import lombok.Getter;
 @Getter
 @ResponseStatus(HttpStatus.NOT_FOUND)
-public class UserNotFoundException extends RuntimeException {
+public class UserNotFoundException extends BusinessException {
     public UserNotFoundException(String message) {
         super(message);
     }
@@ -0,0 +1,13 @@
+package com.example.bankcards.exception;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import lombok.Getter;
+@Getter
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class VelocityLimitExceededException extends BusinessException {
+    private final String rule;
+    public VelocityLimitExceededException(String rule, String message) {
+        super(message);
+        this.rule = rule;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.monitoring;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+/**
+ * Пропускает не более {@code permitsPerSecond} событий уровня INFO и ниже в секунду
+ * для каждого логгера из списка; WARN и ERROR не ограничиваются.
+ */
+public class LogSamplingTurboFilter extends TurboFilter {
+    private final List<String> loggerPrefixes = new ArrayList<>();
+    private final Map<String, AtomicLong> windows = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private int permitsPerSecond = 10;
+    public void addLogger(String logger) {
+        loggerPrefixes.add(logger.trim());
+    }
+    public void setPermitsPerSecond(int permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+    public long getDropped() {
+        return dropped.get();
+    }
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || level == null || level.isGreaterOrEqual(Level.WARN) || !isSampled(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        AtomicLong window = windows.computeIfAbsent(logger.getName(), name -> new AtomicLong());
+        long second = System.currentTimeMillis() / 1000;
+        while (true) {
+            long current = window.get();
+            long currentSecond = current >>> 20;
+            long count = current & 0xFFFFF;
+            long next;
+            if (currentSecond != second) {
+                next = (second << 20) | 1;
+            } else if (count < permitsPerSecond) {
+                next = current + 1;
+            } else {
+                dropped.incrementAndGet();
+                return FilterReply.DENY;
+            }
+            if (window.compareAndSet(current, next)) {
+                return FilterReply.NEUTRAL;
+            }
+        }
+    }
+    private boolean isSampled(String loggerName) {
+        for (String prefix : loggerPrefixes) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
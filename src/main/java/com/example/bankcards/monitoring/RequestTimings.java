@@ -0,0 +1,77 @@
+package com.example.bankcards.monitoring;
+import java.util.Locale;
+public final class RequestTimings {
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private final long startNanos;
+    private long jwtNanos;
+    private long authNanos;
+    private long serviceNanos;
+    private long serviceStart;
+    private int serviceDepth;
+    private long sqlNanos;
+    private long sqlStart;
+    private int sqlCount;
+    private long commitNanos;
+    private long commitStart;
+    private RequestTimings(long startNanos) {
+        this.startNanos = startNanos;
+    }
+    public static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings(System.nanoTime());
+        CURRENT.set(timings);
+        return timings;
+    }
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+    public static void end() {
+        CURRENT.remove();
+    }
+    public void addJwt(long nanos) {
+        jwtNanos += nanos;
+    }
+    public void addAuth(long nanos) {
+        authNanos += nanos;
+    }
+    public void enterService() {
+        if (serviceDepth++ == 0) {
+            serviceStart = System.nanoTime();
+        }
+    }
+    public void exitService() {
+        if (--serviceDepth == 0) {
+            serviceNanos += System.nanoTime() - serviceStart;
+        }
+    }
+    public void beforeSql() {
+        sqlStart = System.nanoTime();
+    }
+    public void afterSql(int statements) {
+        sqlNanos += System.nanoTime() - sqlStart;
+        sqlCount += statements;
+    }
+    public void beforeCommit() {
+        commitStart = System.nanoTime();
+    }
+    public void afterCommit() {
+        commitNanos += System.nanoTime() - commitStart;
+    }
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+    public int getSqlCount() {
+        return sqlCount;
+    }
+    public String toServerTimingHeader() {
+        long total = elapsedNanos();
+        long filter = Math.max(0, total - jwtNanos - authNanos - serviceNanos);
+        return String.format(Locale.ROOT,
+                "filter;dur=%.2f, jwt;dur=%.2f, auth;dur=%.2f, service;dur=%.2f, sql;dur=%.2f;desc=\"%d queries\", commit;dur=%.2f, total;dur=%.2f",
+                millis(filter), millis(jwtNanos), millis(authNanos), millis(serviceNanos),
+                millis(sqlNanos), sqlCount, millis(commitNanos), millis(total));
+    }
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
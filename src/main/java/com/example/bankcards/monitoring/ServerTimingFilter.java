@@ -0,0 +1,74 @@
+package com.example.bankcards.monitoring;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@Slf4j
+public class ServerTimingFilter extends OncePerRequestFilter {
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+    @Value("${server-timing.enabled:true}")
+    private boolean enabled;
+    @Value("${server-timing.sample-rate:0.01}")
+    private double sampleRate;
+    @Value("${server-timing.slow-request-ms:500}")
+    private long slowRequestMs;
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            chain.doFilter(request, response);
+            return;
+        }
+        RequestTimings timings = RequestTimings.begin();
+        ServerTimingResponseWrapper wrapper = new ServerTimingResponseWrapper(response, timings);
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            wrapper.writeHeader();
+            RequestTimings.end();
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(timings.elapsedNanos());
+            if (elapsedMs >= slowRequestMs) {
+                log.warn("Медленный запрос {} {} ({} мс, статус {}): {}", request.getMethod(), request.getRequestURI(),
+                        elapsedMs, response.getStatus(), timings.toServerTimingHeader());
+            }
+        }
+    }
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || sampleRate <= 0;
+    }
+    private static final class ServerTimingResponseWrapper extends OnCommittedResponseWrapper {
+        private final RequestTimings timings;
+        private boolean written;
+        private ServerTimingResponseWrapper(HttpServletResponse response, RequestTimings timings) {
+            super(response);
+            this.timings = timings;
+        }
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+        private void writeHeader() {
+            if (written) {
+                return;
+            }
+            written = true;
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (!response.isCommitted()) {
+                response.setHeader(SERVER_TIMING_HEADER, timings.toServerTimingHeader());
+            }
+        }
+    }
+}
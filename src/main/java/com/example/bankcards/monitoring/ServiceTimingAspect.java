@@ -0,0 +1,25 @@
+package com.example.bankcards.monitoring;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceTimingAspect {
+    @Around("within(com.example.bankcards.service.impl..*) && !within(com.example.bankcards.service.impl.auth..*)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) {
+            return joinPoint.proceed();
+        }
+        timings.enterService();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timings.exitService();
+        }
+    }
+}
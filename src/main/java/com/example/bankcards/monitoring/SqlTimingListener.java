@@ -0,0 +1,42 @@
+package com.example.bankcards.monitoring;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import java.sql.Connection;
+import java.util.List;
+public class SqlTimingListener implements QueryExecutionListener, MethodExecutionListener {
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null) {
+            timings.beforeSql();
+        }
+    }
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null) {
+            timings.afterSql(Math.max(1, execInfo.getBatchSize() > 0 ? execInfo.getBatchSize() : queryInfoList.size()));
+        }
+    }
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null && isCommit(executionContext)) {
+            timings.beforeCommit();
+        }
+    }
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null && isCommit(executionContext)) {
+            timings.afterCommit();
+        }
+    }
+    private static boolean isCommit(MethodExecutionContext executionContext) {
+        return executionContext.getTarget() instanceof Connection
+                && "commit".equals(executionContext.getMethod().getName());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.bankcards.monitoring.jfr;
+import com.example.bankcards.dto.transaction.TransactionRequest;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+/**
+ * Пишет JFR-события вокруг перевода и вызовов репозиториев. Пока запись с этими событиями не запущена,
+ * {@code isEnabled()} возвращает false и накладные расходы сводятся к одной проверке.
+ */
+@Aspect
+@Component
+public class JfrEventAspect {
+    private static final String REPOSITORY_PACKAGE = "com.example.bankcards.repository";
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+    @Around("execution(* com.example.bankcards.service.TransactionService.transfer(..)) && args(request)")
+    public Object recordTransfer(ProceedingJoinPoint joinPoint, TransactionRequest request) throws Throwable {
+        TransferEvent event = new TransferEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        boolean success = false;
+        try {
+            Object result = joinPoint.proceed();
+            success = true;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.fromCardId = request.getFromCardId() != null ? request.getFromCardId() : 0;
+                event.toCardId = request.getToCardId() != null ? request.getToCardId() : 0;
+                event.amount = request.getAmount() != null ? request.getAmount() : 0;
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object recordRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        boolean success = false;
+        try {
+            Object result = joinPoint.proceed();
+            success = true;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.repository = repositoryNames.computeIfAbsent(joinPoint.getTarget().getClass(), JfrEventAspect::repositoryName);
+                event.method = joinPoint.getSignature().getName();
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+    private static String repositoryName(Class<?> targetClass) {
+        for (Class<?> candidate : targetClass.getInterfaces()) {
+            if (candidate.getPackageName().startsWith(REPOSITORY_PACKAGE)) {
+                return candidate.getSimpleName();
+            }
+        }
+        return targetClass.getSimpleName();
+    }
+}
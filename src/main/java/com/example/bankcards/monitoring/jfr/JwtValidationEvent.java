@@ -0,0 +1,19 @@
+package com.example.bankcards.monitoring.jfr;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+@Name("com.example.bankcards.JwtValidation")
+@Label("JWT Validation")
+@Category({"Bank", "Security"})
+@Description("Разбор JWT, загрузка пользователя и проверка токена в JwtRequestFilter")
+@StackTrace(false)
+public class JwtValidationEvent extends Event {
+    // записи скачиваются через API, поэтому вместо имени пользователя пишется только его id (0, если не загружен)
+    @Label("User Id")
+    public long userId;
+    @Label("Valid")
+    public boolean valid;
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.monitoring.jfr;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+@Name("com.example.bankcards.RepositoryCall")
+@Label("Repository Call")
+@Category({"Bank", "Persistence"})
+@Description("Вызов метода Spring Data репозитория")
+public class RepositoryCallEvent extends Event {
+    @Label("Repository")
+    public String repository;
+    @Label("Method")
+    public String method;
+    @Label("Success")
+    public boolean success;
+}
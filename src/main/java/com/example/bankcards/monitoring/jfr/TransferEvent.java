@@ -0,0 +1,22 @@
+package com.example.bankcards.monitoring.jfr;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+@Name("com.example.bankcards.Transfer")
+@Label("Transfer")
+@Category({"Bank", "Service"})
+@Description("Перевод между картами, включая блокировки строк и коммит")
+@StackTrace(false)
+public class TransferEvent extends Event {
+    @Label("From Card Id")
+    public long fromCardId;
+    @Label("To Card Id")
+    public long toCardId;
+    @Label("Amount")
+    public double amount;
+    @Label("Success")
+    public boolean success;
+}
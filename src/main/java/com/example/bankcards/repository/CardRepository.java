@@ -1,28 +1,57 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.card.CardBalanceResponse;
+import com.example.bankcards.dto.card.CardResponse;
 import com.example.bankcards.entity.Card;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CardRepository extends JpaRepository<Card, Long> {
+public interface CardRepository extends JpaRepository<Card, Long>, CardRepositoryCustom {
 
     void deleteAllCardsByUserId(Long userId);
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    Page<Card> findByUserId(Long userId, Pageable pageable);
+    @Query(value = "select new com.example.bankcards.dto.card.CardResponse(c.id, c.encryptedCardNumber, c.ownerName, " +
+            "c.expirationDate, c.status, c.balance, c.user.id, c.version) from Card c where c.user.id = :userId",
+            countQuery = "select count(c) from Card c where c.user.id = :userId")
+    Page<CardResponse> findCardResponsesByUserId(@Param("userId") Long userId, Pageable pageable);
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id = :id")
+    Optional<Card> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("select new com.example.bankcards.dto.card.CardBalanceResponse(c.id, c.balance, c.version) " +
+            "from Card c where c.id in :ids and c.user.id = :userId order by c.id")
+    List<CardBalanceResponse> findBalancesByIdInAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
     boolean existsByEncryptedCardNumber(String encryptedCardNumber);
 
+    @Query("select c.id from Card c where c.user.id = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "cards"))
+    @Query(value = "UPDATE cards SET deleted_at = now(), version = version + 1 WHERE id = :id AND deleted_at IS NULL",
+            nativeQuery = true)
+    int softDeleteById(@Param("id") Long id);
 
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "cards"))
+    @Query(value = "UPDATE cards SET deleted_at = now(), version = version + 1 WHERE user_id = :userId AND deleted_at IS NULL",
+            nativeQuery = true)
+    int softDeleteByUserId(@Param("userId") Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.example.bankcards.repository;
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.dto.card.CardSearchFilter;
+import com.example.bankcards.entity.Card;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+public interface CardRepositoryCustom {
+    /**
+     * Переводит в {@code to} следующую пачку карт с id больше {@code afterId}, находящихся в одном из статусов
+     * {@code from} и подходящих под фильтр. Пачка выбирается по порядку id, поэтому повторный вызов
+     * с {@link StatusChunk#lastId()} продолжает с места остановки.
+     */
+    StatusChunk updateStatusChunk(StatusFilter filter, Collection<Card.Status> from, Card.Status to,
+                                  long afterId, int limit);
+    /**
+     * Следующие {@code limit} карт с id больше {@code afterId} по порядку id. Строки читаются сразу
+     * в {@link CardResponse}, сущности {@link Card} и их коллекции не загружаются.
+     */
+    List<CardResponse> findCardResponsesAfter(CardSearchFilter filter, long afterId, int limit);
+    /**
+     * Передает все подходящие карты по порядку id, читая их курсором по {@code fetchSize} строк.
+     * Должен вызываться внутри транзакции, иначе драйвер Postgres загрузит результат целиком.
+     */
+    void streamCardResponses(CardSearchFilter filter, int fetchSize, Consumer<CardResponse> consumer);
+    /**
+     * Поиск по части имени владельца без учета регистра по триграммному индексу ({@code pg_trgm}).
+     * Совпадение с начала имени ранжируется выше, дальше по похожести на запрос; в выдачу попадают карты не больше
+     * чем {@code maxNames} лучших имен. Страницы идут по ключу (score, id) после {@code afterScore}/{@code afterId};
+     * без {@code query} у всех карт score 0 и порядок по id.
+     */
+    List<CardSearchHit> searchCardResponses(String query, CardSearchFilter filter, BigDecimal afterScore, long afterId,
+                                            int limit, int maxNames);
+    record CardSearchHit(CardResponse card, BigDecimal score) {
+    }
+    record StatusFilter(Long userId, Collection<Long> ids, LocalDate expiresFrom, LocalDate expiresTo,
+                        LocalDate expiresBefore) {
+    }
+    record StatusChunk(Long lastId, int scanned, List<Long> updatedIds) {
+    }
+}
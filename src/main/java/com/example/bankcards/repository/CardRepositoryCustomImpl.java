@@ -0,0 +1,167 @@
+package com.example.bankcards.repository;
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.dto.card.CardSearchFilter;
+import com.example.bankcards.entity.Card;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+@RequiredArgsConstructor
+public class CardRepositoryCustomImpl implements CardRepositoryCustom {
+    private static final String CARD_RESPONSE_COLUMNS =
+            "id, encrypted_card_number, owner_name, expiration_date, status, balance, user_id, version";
+    private static final RowMapper<CardResponse> CARD_RESPONSE_MAPPER = (rs, rowNum) -> new CardResponse(
+            rs.getLong("id"),
+            rs.getString("encrypted_card_number"),
+            rs.getString("owner_name"),
+            YearMonth.from(rs.getObject("expiration_date", LocalDate.class)),
+            Card.Status.valueOf(rs.getString("status")),
+            rs.getDouble("balance"),
+            rs.getLong("user_id"),
+            rs.getLong("version"));
+    private static final RowMapper<CardSearchHit> SEARCH_HIT_MAPPER = (rs, rowNum) ->
+            new CardSearchHit(CARD_RESPONSE_MAPPER.mapRow(rs, rowNum), rs.getBigDecimal("score"));
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    @Override
+    public List<CardResponse> findCardResponsesAfter(CardSearchFilter filter, long afterId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+        String sql = "SELECT " + CARD_RESPONSE_COLUMNS + " FROM cards WHERE id > :afterId" + searchConditions(filter, params) +
+                " ORDER BY id LIMIT :limit";
+        return jdbcTemplate.query(sql, params, CARD_RESPONSE_MAPPER);
+    }
+    @Override
+    public void streamCardResponses(CardSearchFilter filter, int fetchSize, Consumer<CardResponse> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT " + CARD_RESPONSE_COLUMNS + " FROM cards WHERE TRUE" + searchConditions(filter, params) +
+                " ORDER BY id";
+        // общий JdbcTemplate не трогаем: размер выборки нужен только этому запросу
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        streaming.setFetchSize(fetchSize);
+        new NamedParameterJdbcTemplate(streaming).query(sql, params,
+                (RowCallbackHandler) rs -> consumer.accept(CARD_RESPONSE_MAPPER.mapRow(rs, rs.getRow())));
+    }
+    @Override
+    public List<CardSearchHit> searchCardResponses(String query, CardSearchFilter filter, BigDecimal afterScore,
+                                                   long afterId, int limit, int maxNames) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("limit", limit)
+                .addValue("afterId", afterId);
+        String conditions = searchConditions(filter, params);
+        if (query == null) {
+            String sql = "SELECT " + CARD_RESPONSE_COLUMNS + ", 0 AS score FROM cards WHERE id > :afterId" + conditions +
+                    " ORDER BY id LIMIT :limit";
+            return jdbcTemplate.query(sql, params, SEARCH_HIT_MAPPER);
+        }
+        params.addValue("query", query)
+                .addValue("contains", "%" + escapeLike(query) + "%")
+                .addValue("prefix", escapeLike(query) + "%")
+                .addValue("maxNames", maxNames);
+        // имена ищутся в справочнике различных имен: у одного имени тысячи карт, и GIN по самим картам
+        // на десятках миллионов строк пересекает слишком длинные списки
+        String names = "SELECT owner_name, round((CASE WHEN owner_name ILIKE :prefix THEN 1 ELSE 0 END + " +
+                "similarity(owner_name, :query))::numeric, 4) AS score FROM card_owner_names " +
+                "WHERE owner_name ILIKE :contains ORDER BY score DESC, owner_name LIMIT :maxNames";
+        String afterCondition = "";
+        String afterNames = "";
+        if (afterScore != null) {
+            afterCondition = " AND id > CASE WHEN n.score = :afterScore THEN :afterId ELSE 0 END";
+            afterNames = " WHERE n.score <= :afterScore";
+            params.addValue("afterScore", afterScore);
+        }
+        // для каждого имени нужны только первые limit карт по id: без фильтров их id отдает индекс (owner_name, id)
+        // без чтения таблицы, с last4 — индекс (last4, owner_name, id); строки читаются только для итоговой страницы
+        String hits = "SELECT c.id, n.score FROM (" + names + ") n CROSS JOIN LATERAL (SELECT id FROM cards " +
+                "WHERE owner_name = n.owner_name" + conditions + afterCondition + " ORDER BY id LIMIT :limit) c" + afterNames +
+                " ORDER BY n.score DESC, c.id LIMIT :limit";
+        String sql = "SELECT " + CARD_RESPONSE_COLUMNS + ", hits.score FROM (" + hits + ") hits JOIN cards USING (id) " +
+                "ORDER BY hits.score DESC, id";
+        return jdbcTemplate.query(sql, params, SEARCH_HIT_MAPPER);
+    }
+    private static String searchConditions(CardSearchFilter filter, MapSqlParameterSource params) {
+        StringBuilder where = new StringBuilder(" AND deleted_at IS NULL");
+        if (filter.getStatus() != null) {
+            where.append(" AND status = :status");
+            params.addValue("status", filter.getStatus().name());
+        }
+        if (filter.getUserId() != null) {
+            where.append(" AND user_id = :userId");
+            params.addValue("userId", filter.getUserId());
+        }
+        if (filter.getOwnerNamePrefix() != null && !filter.getOwnerNamePrefix().isBlank()) {
+            where.append(" AND owner_name LIKE :ownerNamePrefix");
+            params.addValue("ownerNamePrefix", escapeLike(filter.getOwnerNamePrefix()) + "%");
+        }
+        if (filter.getLast4() != null && !filter.getLast4().isBlank()) {
+            where.append(" AND last4 = :last4");
+            params.addValue("last4", filter.getLast4());
+        }
+        if (filter.getExpiresFrom() != null) {
+            where.append(" AND expiration_date >= :expiresFrom");
+            params.addValue("expiresFrom", filter.getExpiresFrom().atDay(1));
+        }
+        if (filter.getExpiresTo() != null) {
+            where.append(" AND expiration_date <= :expiresTo");
+            params.addValue("expiresTo", filter.getExpiresTo().atEndOfMonth());
+        }
+        return where.toString();
+    }
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+    @Override
+    public StatusChunk updateStatusChunk(StatusFilter filter, Collection<Card.Status> from, Card.Status to,
+                                         long afterId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("limit", limit)
+                .addValue("from", from.stream().map(Enum::name).toArray(String[]::new))
+                .addValue("to", to.name());
+        StringBuilder where = new StringBuilder("id > :afterId AND status = ANY(:from) AND deleted_at IS NULL");
+        if (filter.userId() != null) {
+            where.append(" AND user_id = :userId");
+            params.addValue("userId", filter.userId());
+        }
+        if (filter.ids() != null && !filter.ids().isEmpty()) {
+            where.append(" AND id = ANY(:ids)");
+            params.addValue("ids", filter.ids().toArray(Long[]::new));
+        }
+        if (filter.expiresFrom() != null) {
+            where.append(" AND expiration_date >= :expiresFrom");
+            params.addValue("expiresFrom", filter.expiresFrom());
+        }
+        if (filter.expiresTo() != null) {
+            where.append(" AND expiration_date <= :expiresTo");
+            params.addValue("expiresTo", filter.expiresTo());
+        }
+        if (filter.expiresBefore() != null) {
+            where.append(" AND expiration_date < :expiresBefore");
+            params.addValue("expiresBefore", filter.expiresBefore());
+        }
+        // статус и отметка удаления повторно проверяются в UPDATE: строку мог изменить параллельный запрос после выборки пачки
+        String sql = "WITH batch AS (SELECT id FROM cards WHERE " + where + " ORDER BY id LIMIT :limit), " +
+                "updated AS (UPDATE cards c SET status = :to, version = c.version + 1 FROM batch " +
+                "WHERE c.id = batch.id AND c.status = ANY(:from) AND c.deleted_at IS NULL RETURNING c.id) " +
+                "SELECT (SELECT max(id) FROM batch) AS last_id, (SELECT count(*) FROM batch) AS scanned, " +
+                "ARRAY(SELECT id FROM updated ORDER BY id) AS ids";
+        return jdbcTemplate.queryForObject(sql, params, (rs, rowNum) -> {
+            long lastId = rs.getLong("last_id");
+            Long last = rs.wasNull() ? null : lastId;
+            Array ids = rs.getArray("ids");
+            List<Long> updatedIds = Arrays.asList((Long[]) ids.getArray());
+            ids.free();
+            return new StatusChunk(last, rs.getInt("scanned"), updatedIds);
+        });
+    }
+}
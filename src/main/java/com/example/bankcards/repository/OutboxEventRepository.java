@@ -0,0 +1,31 @@
+package com.example.bankcards.repository;
+import com.example.bankcards.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    @Query(value = "SELECT * FROM outbox WHERE attempts < :maxAttempts ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> claimBatch(@Param("limit") int limit, @Param("maxAttempts") int maxAttempts);
+    @Query(value = "SELECT DISTINCT aggregate_id FROM outbox " +
+            "WHERE aggregate_id IN (:aggregateIds) AND id < :maxId AND id NOT IN (:claimedIds) " +
+            "AND attempts < :maxAttempts",
+            nativeQuery = true)
+    List<Long> findAggregatesWithPendingPredecessors(@Param("aggregateIds") Collection<Long> aggregateIds,
+                                                     @Param("maxId") Long maxId,
+                                                     @Param("claimedIds") Collection<Long> claimedIds,
+                                                     @Param("maxAttempts") int maxAttempts);
+    @Query(value = "SELECT count(*) FROM outbox WHERE attempts >= :maxAttempts", nativeQuery = true)
+    long countExhausted(@Param("maxAttempts") int maxAttempts);
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = e.attempts + 1, e.lastError = :error where e.id in :ids")
+    int markFailed(@Param("ids") Collection<Long> ids, @Param("error") String error);
+}
@@ -1,8 +1,25 @@
 package com.example.bankcards.repository;
+import com.example.bankcards.dto.transaction.TransferVelocitySample;
 import com.example.bankcards.entity.Transaction;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-}
\ No newline at end of file
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.example.bankcards.dto.transaction.TransferVelocitySample(" +
+            "t.fromCard.id, f.user.id, t.toCard.id, t.amount, t.timestamp) " +
+            "from Transaction t join t.fromCard f " +
+            "where t.timestamp >= :since and t.status = :status " +
+            "order by t.timestamp")
+    Stream<TransferVelocitySample> streamVelocitySamplesSince(@Param("since") LocalDateTime since,
+                                                               @Param("status") Transaction.Status status);
+}
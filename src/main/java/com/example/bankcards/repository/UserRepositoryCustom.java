@@ -0,0 +1,10 @@
+package com.example.bankcards.repository;
+import com.example.bankcards.entity.User;
+import java.util.Optional;
+public interface UserRepositoryCustom {
+    /**
+     * Ищет пользователя по имени как по natural id: id берется из кэша {@code users.username}, а сам
+     * пользователь с ролями — из кэша второго уровня, так что повторные запросы с тем же токеном не ходят в БД.
+     */
+    Optional<User> findByUsername(String username);
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.repository;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Optional;
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private final EntityManager entityManager;
+    // SUPPORTS держит сессию открытой до конца метода и вне транзакции, не открывая новую: read-only транзакция
+    // ушла бы на реплику, а фильтр JWT всегда читал пользователя с primary
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<User> findByUsername(String username) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(username);
+    }
+}
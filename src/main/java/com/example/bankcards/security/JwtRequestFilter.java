@@ -1,6 +1,12 @@
 package com.example.bankcards.security;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.monitoring.RequestIdFilter;
+import com.example.bankcards.monitoring.RequestTimings;
+import com.example.bankcards.monitoring.jfr.JwtValidationEvent;
 import com.example.bankcards.service.auth.UserDetailsService;
 import com.example.bankcards.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,15 +17,23 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtRequestFilter extends OncePerRequestFilter {
     private final UserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
+    private final Timer validTokenTimer;
+    private final Timer invalidTokenTimer;
+    public JwtRequestFilter(UserDetailsService userDetailsService, JwtUtil jwtUtil, MeterRegistry meterRegistry) {
+        this.userDetailsService = userDetailsService;
+        this.jwtUtil = jwtUtil;
+        this.validTokenTimer = jwtValidationTimer(meterRegistry, "valid");
+        this.invalidTokenTimer = jwtValidationTimer(meterRegistry, "invalid");
+    }
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain chain) throws ServletException, IOException {
@@ -34,6 +48,12 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
         String username = null;
         String jwtToken = null;
+        long validationStart = System.nanoTime();
+        boolean authenticated = false;
+        long userId = 0;
+        JwtValidationEvent jfrEvent = new JwtValidationEvent();
+        jfrEvent.begin();
+        RequestTimings timings = RequestTimings.current();
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwtToken = authorizationHeader.substring(7);
             username = jwtUtil.extractUsername(jwtToken);
@@ -41,12 +61,27 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
+                long authStart = System.nanoTime();
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.validateToken(jwtToken, userDetails)) {
+                if (timings != null) {
+                    timings.addJwt(authStart - validationStart);
+                    timings.addAuth(System.nanoTime() - authStart);
+                }
+                long validateStart = System.nanoTime();
+                boolean valid = jwtUtil.validateToken(jwtToken, userDetails);
+                if (timings != null) {
+                    timings.addJwt(System.nanoTime() - validateStart);
+                }
+                if (valid) {
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    authenticated = true;
+                    if (userDetails instanceof User user) {
+                        userId = user.getId();
+                        MDC.put(RequestIdFilter.MDC_USER_ID, String.valueOf(userId));
+                    }
                     log.info("Аутентификация установлена для пользователя: {}", username);
                 } else {
                     log.warn("Токен не валиден для пользователя: {}", username);
@@ -55,9 +90,25 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 log.error("Ошибка при валидации токена для пользователя {}: {}", username, e.getMessage(), e);
             }
         }
+        if (jwtToken != null) {
+            (authenticated ? validTokenTimer : invalidTokenTimer).record(System.nanoTime() - validationStart, TimeUnit.NANOSECONDS);
+            jfrEvent.end();
+            if (jfrEvent.shouldCommit()) {
+                jfrEvent.userId = userId;
+                jfrEvent.valid = authenticated;
+                jfrEvent.commit();
+            }
+        }
         log.debug("=== КОНЕЦ JWT ФИЛЬТРА - передаем управление дальше ===");
         chain.doFilter(request, response);
     }
+    private static Timer jwtValidationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("bank.jwt.validation")
+                .description("Разбор JWT, загрузка пользователя и проверка токена")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
     @Override
     public boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
         String path = request.getRequestURI();
@@ -0,0 +1,125 @@
+package com.example.bankcards.security;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.util.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String LOGIN_PATH = "/auth/login";
+    private static final String TRANSACTIONS_PATH = "/api/user/transactions/";
+    private final boolean enabled;
+    private final RateLimiter loginByIp;
+    private final RateLimiter transfersByUser;
+    private final RateLimiter transfersByIp;
+    private final Map<String, Counter> rejections;
+    public RateLimitFilter(@Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.max-keys:100000}") int maxKeys,
+                           @Value("${rate-limit.login.capacity:10}") int loginCapacity,
+                           @Value("${rate-limit.login.refill-per-second:0.2}") double loginRefill,
+                           @Value("${rate-limit.transfers.user.capacity:20}") int transferUserCapacity,
+                           @Value("${rate-limit.transfers.user.refill-per-second:5}") double transferUserRefill,
+                           @Value("${rate-limit.transfers.ip.capacity:100}") int transferIpCapacity,
+                           @Value("${rate-limit.transfers.ip.refill-per-second:50}") double transferIpRefill,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.loginByIp = new RateLimiter("login-ip", loginCapacity, loginRefill, maxKeys);
+        this.transfersByUser = new RateLimiter("transfers-user", transferUserCapacity, transferUserRefill, maxKeys);
+        this.transfersByIp = new RateLimiter("transfers-ip", transferIpCapacity, transferIpRefill, maxKeys);
+        this.rejections = Map.of(
+                loginByIp.getName(), rejectionCounter(meterRegistry, loginByIp),
+                transfersByUser.getName(), rejectionCounter(meterRegistry, transfersByUser),
+                transfersByIp.getName(), rejectionCounter(meterRegistry, transfersByIp));
+        log.info("Rate limiting {}: логин {}/{} в с, переводы {}/{} в с на пользователя",
+                enabled ? "включен" : "отключен", loginCapacity, loginRefill, transferUserCapacity, transferUserRefill);
+    }
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String path = request.getRequestURI();
+        long now = System.nanoTime();
+        long waitNanos = 0;
+        RateLimiter limiter = null;
+        if (path.equals(LOGIN_PATH)) {
+            limiter = loginByIp;
+            waitNanos = loginByIp.tryAcquire(request.getRemoteAddr(), now);
+        } else if (path.startsWith(TRANSACTIONS_PATH)) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()) {
+                limiter = transfersByUser;
+                waitNanos = transfersByUser.tryAcquire(userKey(authentication), now);
+            }
+            if (waitNanos == 0) {
+                limiter = transfersByIp;
+                waitNanos = transfersByIp.tryAcquire(request.getRemoteAddr(), now);
+            }
+        }
+        if (waitNanos > 0) {
+            reject(request, response, limiter, waitNanos);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int evicted = loginByIp.evictIdle(now) + transfersByUser.evictIdle(now) + transfersByIp.evictIdle(now);
+        if (evicted > 0) {
+            log.debug("Rate limiting: удалено {} неактивных корзин", evicted);
+        }
+    }
+    // корзина привязана к id: после переименования или при повторно занятом имени лимит не переходит к другому
+    // пользователю. Имя — только для принципалов, которые не являются User
+    private static String userKey(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof User user && user.getId() != null) {
+            return Long.toString(user.getId());
+        }
+        return "name:" + authentication.getName();
+    }
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, RateLimiter limiter) {
+        meterRegistry.gauge("bank.rate_limit.keys", Tags.of("limiter", limiter.getName()),
+                limiter, RateLimiter::size);
+        return Counter.builder("bank.rate_limit.rejected")
+                .description("Запросы, отклоненные rate limiting")
+                .tag("limiter", limiter.getName())
+                .register(meterRegistry);
+    }
+    private void reject(HttpServletRequest request, HttpServletResponse response,
+                        RateLimiter limiter, long waitNanos) throws IOException {
+        rejections.get(limiter.getName()).increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        log.warn("Превышен лимит запросов {} для {} {}, повтор через {} с",
+                limiter.getName(), request.getMethod(), request.getRequestURI(), retryAfterSeconds);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"timestamp\":\"" + LocalDateTime.now() + "\",\"status\":429," +
+                "\"error\":\"Too Many Requests\",\"message\":\"Слишком много запросов, повторите позже\"," +
+                "\"path\":\"" + request.getRequestURI() + "\"}");
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.bankcards.security;
 import com.example.bankcards.service.auth.UserDetailsService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -30,6 +31,9 @@ import java.util.List;
 public class SecurityConfig {
     private final UserDetailsService userDetailsService;
     private final JwtRequestFilter jwtRequestFilter;
+    private final RateLimitFilter rateLimitFilter;
+    @Value("${security.password-hashing.max-concurrent:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int maxConcurrentHashing;
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         log.info("=== КРИТИЧЕСКАЯ НАСТРОЙКА БЕЗОПАСНОСТИ ===");
@@ -64,7 +68,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/user/**").hasAnyRole("USER", "ADMIN")
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtRequestFilter.class);
         log.info("=== КОНФИГУРАЦИЯ БЕЗОПАСНОСТИ ПРИМЕНЕНА ===");
         log.info("permitAll для /auth/login: ✅ ВКЛЮЧЕНО");
         log.info("CSRF: ❌ ОТКЛЮЧЕНО");
@@ -100,6 +105,6 @@ public class SecurityConfig {
     public PasswordEncoder passwordEncoder() {
         BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
         log.info("BCryptPasswordEncoder ИНИЦИАЛИЗИРОВАН (strength=12)");
-        return encoder;
+        return new BoundedPasswordEncoder(encoder, maxConcurrentHashing);
     }
 }
\ No newline at end of file
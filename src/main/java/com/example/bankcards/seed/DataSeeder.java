@@ -0,0 +1,270 @@
+package com.example.bankcards.seed;
+import com.example.bankcards.service.EncryptionService;
+import com.example.bankcards.util.ZipfSampler;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+/**
+ * Генерирует синтетические данные и загружает их через {@code COPY FROM STDIN} параллельными чанками.
+ * Все пользователи получают один заранее вычисленный хеш пароля; номера карт проходят проверку Луна
+ * и уникальны за счет идентификатора карты; отправитель и получатель перевода выбираются по Ципфу,
+ * так что небольшое число карт получает большую часть истории. Вторичные индексы и внешние ключи
+ * {@code transactions} на время загрузки снимаются и создаются заново одним проходом.
+ */
+@Component
+@Profile("seed")
+@Slf4j
+public class DataSeeder implements ApplicationRunner {
+    private static final String USERNAME_PREFIX = "seed_";
+    private static final String CARD_NUMBER_PREFIX = "3985";
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+    // Простое число больше любого реального количества карт: умножение по модулю дает биекцию
+    // ранг -> карта, чтобы «горячие» карты не совпадали с первыми идентификаторами
+    private static final long RANK_PERMUTATION_PRIME = 1_000_000_007L;
+    private final DataSource dataSource;
+    private final PasswordEncoder passwordEncoder;
+    private final EncryptionService encryptionService;
+    private final ConfigurableApplicationContext applicationContext;
+    @Value("${seed.users:100000}")
+    private int users;
+    @Value("${seed.cards-per-user:2}")
+    private int cardsPerUser;
+    @Value("${seed.transactions:10000000}")
+    private long transactions;
+    @Value("${seed.threads:0}")
+    private int threads;
+    @Value("${seed.chunk-size:500000}")
+    private int chunkSize;
+    @Value("${seed.zipf-exponent:1.1}")
+    private double zipfExponent;
+    @Value("${seed.history-days:365}")
+    private int historyDays;
+    @Value("${seed.random-seed:20240101}")
+    private long randomSeed;
+    @Value("${seed.password:password}")
+    private String password;
+    @Value("${seed.exit-on-completion:true}")
+    private boolean exitOnCompletion;
+    public DataSeeder(DataSource dataSource, PasswordEncoder passwordEncoder, EncryptionService encryptionService,
+                      ConfigurableApplicationContext applicationContext) {
+        this.dataSource = dataSource;
+        this.passwordEncoder = passwordEncoder;
+        this.encryptionService = encryptionService;
+        this.applicationContext = applicationContext;
+    }
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        long started = System.nanoTime();
+        String passwordHash = passwordEncoder.encode(password);
+        long firstUserId;
+        long firstCardId;
+        long roleId;
+        List<String> restoreStatements;
+        try (Connection connection = dataSource.getConnection()) {
+            firstUserId = queryLong(connection, "SELECT COALESCE(MAX(id), 0) + 1 FROM users");
+            firstCardId = queryLong(connection, "SELECT COALESCE(MAX(id), 0) + 1 FROM cards");
+            roleId = queryLong(connection, "SELECT id FROM roles WHERE name = 'USER'");
+            restoreStatements = dropTransactionIndexesAndForeignKeys(connection);
+        }
+        long cards = (long) users * cardsPerUser;
+        log.info("Генерация: {} пользователей, {} карт, {} транзакций, потоков: {}", users, cards, transactions, workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            copy(executor, "COPY users (id, username, password) FROM STDIN", users, (out, from, to, random) -> {
+                for (long i = from; i < to; i++) {
+                    long id = firstUserId + i;
+                    out.append(Long.toString(id)).append('\t').append(USERNAME_PREFIX).append(Long.toString(id))
+                            .append('\t').append(passwordHash).append('\n');
+                }
+            });
+            copy(executor, "COPY users_roles (user_id, role_id) FROM STDIN", users, (out, from, to, random) -> {
+                for (long i = from; i < to; i++) {
+                    out.append(Long.toString(firstUserId + i)).append('\t').append(Long.toString(roleId)).append('\n');
+                }
+            });
+            copy(executor, "COPY cards (id, encrypted_card_number, last4, owner_name, expiration_date, status, balance, user_id) FROM STDIN",
+                    cards, (out, from, to, random) -> writeCards(out, from, to, random, firstUserId, firstCardId));
+            ZipfSampler sampler = new ZipfSampler((int) cards, zipfExponent);
+            LocalDateTime now = LocalDateTime.now().withNano(0);
+            copy(executor, "COPY transactions (from_card_id, to_card_id, amount, timestamp, status) FROM STDIN",
+                    transactions, (out, from, to, random) -> writeTransactions(out, from, to, random, sampler, cards, firstCardId, now));
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                long restoreStarted = System.nanoTime();
+                for (String sql : restoreStatements) {
+                    log.info("Восстановление: {}", sql);
+                    statement.execute(sql);
+                }
+                statement.execute("SELECT setval(pg_get_serial_sequence('users', 'id'), (SELECT MAX(id) FROM users))");
+                statement.execute("SELECT setval(pg_get_serial_sequence('cards', 'id'), (SELECT MAX(id) FROM cards))");
+                statement.execute("ANALYZE users, users_roles, cards, transactions");
+                log.info("Индексы и ограничения восстановлены за {} мс",
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - restoreStarted));
+            }
+        }
+        log.info("Генерация данных завершена за {} с", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+        if (exitOnCompletion) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+    private void writeCards(Writer out, long from, long to, SplittableRandom random,
+                            long firstUserId, long firstCardId) throws IOException {
+        YearMonth current = YearMonth.now();
+        for (long i = from; i < to; i++) {
+            long id = firstCardId + i;
+            long userId = firstUserId + i / cardsPerUser;
+            String cardNumber = withLuhnCheckDigit(CARD_NUMBER_PREFIX + String.format("%011d", id));
+            String status = random.nextInt(100) < 3 ? "BLOCKED" : "ACTIVE";
+            YearMonth expiration = current.plusMonths(1 + random.nextInt(60));
+            out.append(Long.toString(id)).append('\t')
+                    .append(encryptionService.encrypt(cardNumber)).append('\t')
+                    .append(cardNumber, cardNumber.length() - 4, cardNumber.length()).append('\t')
+                    .append("SEED USER ").append(Long.toString(userId)).append('\t')
+                    .append(expiration.atDay(1).toString()).append('\t')
+                    .append(status).append('\t')
+                    .append(Long.toString(random.nextLong(10_000_000))).append(".0\t")
+                    .append(Long.toString(userId)).append('\n');
+        }
+    }
+    private void writeTransactions(Writer out, long from, long to, SplittableRandom random, ZipfSampler sampler,
+                                   long cards, long firstCardId, LocalDateTime now) throws IOException {
+        long historySeconds = TimeUnit.DAYS.toSeconds(historyDays);
+        for (long i = from; i < to; i++) {
+            long fromCard = cardForRank(sampler.sample(random), cards);
+            long toCard = cardForRank(sampler.sample(random), cards);
+            if (toCard == fromCard) {
+                toCard = (toCard + 1) % cards;
+            }
+            long cents = 100 + (long) (-Math.log(1 - random.nextDouble()) * 250_000);
+            String status = random.nextInt(100) < 2 ? "FAILED" : "SUCCESS";
+            out.append(Long.toString(firstCardId + fromCard)).append('\t')
+                    .append(Long.toString(firstCardId + toCard)).append('\t')
+                    .append(Long.toString(cents / 100)).append(cents % 100 < 10 ? ".0" : ".")
+                    .append(Long.toString(cents % 100)).append('\t')
+                    .append(now.minusSeconds(random.nextLong(historySeconds)).toString()).append('\t')
+                    .append(status).append('\n');
+        }
+    }
+    private static long cardForRank(int rank, long cards) {
+        return Math.floorMod((rank - 1) * RANK_PERMUTATION_PRIME, cards);
+    }
+    private void copy(ExecutorService executor, String sql, long rows, ChunkWriter writer)
+            throws InterruptedException, ExecutionException {
+        long started = System.nanoTime();
+        List<Future<?>> chunks = new ArrayList<>();
+        for (long from = 0, chunk = 0; from < rows; from += chunkSize, chunk++) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(rows, from + chunkSize);
+            SplittableRandom random = new SplittableRandom(randomSeed + sql.hashCode() * 31L + chunk);
+            chunks.add(executor.submit(() -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    PGCopyOutputStream copyOut = new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, COPY_BUFFER_SIZE);
+                    try {
+                        Writer out = new BufferedWriter(new OutputStreamWriter(copyOut, StandardCharsets.UTF_8), COPY_BUFFER_SIZE);
+                        writer.write(out, chunkFrom, chunkTo, random);
+                        out.close();
+                    } catch (IOException | RuntimeException e) {
+                        if (copyOut.isActive()) {
+                            copyOut.cancelCopy();
+                        }
+                        throw e;
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> chunk : chunks) {
+            chunk.get();
+        }
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("{}: {} строк за {} мс ({} строк/с)", sql.substring(0, sql.indexOf('(')).trim(), rows, elapsedMs,
+                rows * 1000 / elapsedMs);
+    }
+    private static List<String> dropTransactionIndexesAndForeignKeys(Connection connection) throws SQLException {
+        List<String> restore = new ArrayList<>();
+        List<String> drop = new ArrayList<>();
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT conname, pg_get_constraintdef(oid) FROM pg_constraint " +
+                            "WHERE conrelid = 'transactions'::regclass AND contype = 'f'")) {
+                while (rs.next()) {
+                    drop.add("ALTER TABLE transactions DROP CONSTRAINT " + rs.getString(1));
+                    restore.add("ALTER TABLE transactions ADD CONSTRAINT " + rs.getString(1) + " " + rs.getString(2));
+                }
+            }
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT i.relname, pg_get_indexdef(x.indexrelid) FROM pg_index x JOIN pg_class i ON i.oid = x.indexrelid " +
+                            "WHERE x.indrelid = 'transactions'::regclass " +
+                            "AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = x.indexrelid)")) {
+                while (rs.next()) {
+                    drop.add("DROP INDEX " + rs.getString(1));
+                    restore.add(0, rs.getString(2));
+                }
+            }
+            for (String sql : drop) {
+                log.info("Перед загрузкой: {}", sql);
+                statement.execute(sql);
+            }
+        }
+        return restore;
+    }
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            if (!rs.next()) {
+                throw new IllegalStateException("Запрос не вернул строк: " + sql);
+            }
+            return rs.getLong(1);
+        }
+    }
+    static String withLuhnCheckDigit(String digits) {
+        int sum = 0;
+        boolean doubleDigit = true;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = digits.charAt(i) - '0';
+            if (doubleDigit) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubleDigit = !doubleDigit;
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(Writer out, long from, long to, SplittableRandom random) throws IOException;
+    }
+}
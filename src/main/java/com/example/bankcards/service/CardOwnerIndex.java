@@ -0,0 +1,14 @@
+package com.example.bankcards.service;
+public interface CardOwnerIndex {
+    long UNKNOWN = 0;
+    /**
+     * Владелец карты или {@link #UNKNOWN}, если карты нет в индексе: она создана на другом узле или индекс
+     * выключен. Владелец у карты не меняется, а id не переиспользуются, поэтому найденное значение верно
+     * всегда, а при {@link #UNKNOWN} владельца нужно проверить по загруженной карте.
+     */
+    long ownerOf(long cardId);
+    void put(long cardId, long userId);
+    void putAfterCommit(long cardId, long userId);
+    void removeAfterCommit(long... cardIds);
+    void rebuild();
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.service;
+import com.example.bankcards.dto.card.CardResponse;
+import java.util.function.Function;
+public interface CardResponseCache {
+    CardResponse get(Long cardId, Function<Long, CardResponse> loader);
+    void evictAfterCommit(Long... cardIds);
+    void evictUserCardsAfterCommit(Long userId);
+}
@@ -1,17 +1,30 @@
 package com.example.bankcards.service;
+import com.example.bankcards.dto.card.BulkCardStatusRequest;
+import com.example.bankcards.dto.card.BulkCardStatusResponse;
+import com.example.bankcards.dto.card.CardBalanceResponse;
 import com.example.bankcards.dto.card.CardRequest;
 import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.dto.card.CardSearchFilter;
 import com.example.bankcards.dto.card.CardUpdateRequest;
+import com.example.bankcards.repository.CardRepositoryCustom;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 public interface CardService {
     CardResponse createCard(CardRequest cardRequest);
     CardResponse getCardById(Long id);
     Page<CardResponse> getUserCards(Long userId, Pageable pageable);
-    List<CardResponse> getAllCards();
+    List<CardBalanceResponse> getCardBalances(Long userId, Collection<Long> ids);
+    List<CardResponse> findCards(CardSearchFilter filter, long afterId, int limit);
+    List<CardRepositoryCustom.CardSearchHit> searchCards(String query, CardSearchFilter filter, BigDecimal afterScore,
+                                                        long afterId, int limit);
+    void exportCards(CardSearchFilter filter, Consumer<CardResponse> consumer);
     CardResponse updateCard(Long id, CardUpdateRequest cardUpdateRequest);
     CardResponse blockCard(Long id);
     CardResponse activateCard(Long id);
     void deleteCard(Long id);
+    BulkCardStatusResponse bulkUpdateStatus(BulkCardStatusRequest request);
 }
\ No newline at end of file
@@ -1,4 +1,5 @@
 package com.example.bankcards.service;
 public interface EncryptionService {
     String encrypt(String data);
+    String decrypt(String data);
 }
\ No newline at end of file
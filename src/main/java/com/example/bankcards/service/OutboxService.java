@@ -0,0 +1,6 @@
+package com.example.bankcards.service;
+import com.example.bankcards.dto.transaction.TransactionResponse;
+public interface OutboxService {
+    void enqueueTransferCompleted(TransactionResponse transaction);
+    int relayBatch();
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.service;
+import com.example.bankcards.dto.profiling.ProfilingRequest;
+import com.example.bankcards.dto.profiling.ProfilingStatusResponse;
+import com.example.bankcards.dto.profiling.ProfilingSummaryResponse;
+import java.nio.file.Path;
+public interface ProfilingService {
+    ProfilingStatusResponse start(ProfilingRequest request);
+    ProfilingStatusResponse getStatus(Long id);
+    ProfilingStatusResponse stop(Long id);
+    Path getRecordingFile(Long id);
+    ProfilingSummaryResponse summarize(Long id, int top);
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.service;
+public interface VelocityService {
+    /**
+     * Проверяет лимиты и в том же шаге учитывает перевод в счетчиках, поэтому параллельные переводы не проходят
+     * проверку все разом. Если текущая транзакция откатится, учтенный перевод снимается.
+     */
+    void reserveTransfer(Long userId, Long fromCardId, Long toCardId, Double amount);
+}
@@ -0,0 +1,89 @@
+package com.example.bankcards.service.impl;
+import com.example.bankcards.dto.card.BulkCardStatusRequest;
+import com.example.bankcards.dto.card.BulkCardStatusResponse;
+import com.example.bankcards.service.CardService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+/**
+ * Переводит в {@code EXPIRED} карты, срок которых истек, теми же пачками, что и массовая операция
+ * администратора. Запускается на всех узлах, но работает только тот, кто взял сессионную
+ * advisory-блокировку Postgres; при падении узла блокировка снимается вместе с соединением.
+ */
+@Component
+@ConditionalOnProperty(name = "cards.expiry-sweeper.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CardExpirySweeper {
+    private final CardService cardService;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter expired;
+    @Value("${cards.expiry-sweeper.chunk-size:5000}")
+    private int chunkSize;
+    @Value("${cards.expiry-sweeper.lock-key:7305416}")
+    private long lockKey;
+    public CardExpirySweeper(CardService cardService, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.cardService = cardService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.expired = Counter.builder("bank.card_expiry.expired")
+                .description("Карты, переведенные в EXPIRED плановой проверкой")
+                .register(meterRegistry);
+    }
+    @Scheduled(cron = "${cards.expiry-sweeper.cron:0 5 * * * *}")
+    public void sweep() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome;
+        try {
+            // соединение держится все время прохода: на нем висит блокировка, пачки идут в своих транзакциях
+            outcome = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+                if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                    log.debug("Проверка сроков карт уже выполняется на другом узле");
+                    return "skipped";
+                }
+                try {
+                    expire();
+                    return "success";
+                } finally {
+                    advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+                }
+            });
+        } catch (Exception e) {
+            log.error("Ошибка проверки сроков карт: {}", e.getMessage(), e);
+            outcome = "error";
+        }
+        sample.stop(Timer.builder("bank.card_expiry.sweep")
+                .description("Проходы плановой проверки сроков карт")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+    private void expire() {
+        BulkCardStatusRequest request = new BulkCardStatusRequest();
+        request.setAction(BulkCardStatusRequest.Action.EXPIRE);
+        request.setChunkSize(chunkSize);
+        BulkCardStatusResponse response = cardService.bulkUpdateStatus(request);
+        expired.increment(response.getUpdated());
+        if (response.getUpdated() > 0) {
+            log.info("Истек срок {} карт, обработано за {} мс", response.getUpdated(), response.getElapsedMs());
+        }
+    }
+    private boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lockKey);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
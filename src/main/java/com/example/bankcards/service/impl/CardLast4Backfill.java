@@ -0,0 +1,69 @@
+package com.example.bankcards.service.impl;
+import com.example.bankcards.service.EncryptionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+/**
+ * Заполняет {@code last4} у карт, где его нет: миграция не может вычислить цифры из зашифрованного
+ * номера, поэтому номер расшифровывается здесь. Идет пачками по id; обновление не трогает уже
+ * заполненные строки, поэтому узлы, стартующие одновременно, друг другу не мешают. Пока проход
+ * не закончен, поиск по последним цифрам таких карт не находит.
+ */
+@Component
+@Slf4j
+public class CardLast4Backfill {
+    private final JdbcTemplate jdbcTemplate;
+    private final EncryptionService encryptionService;
+    private final boolean enabled;
+    private final int batchSize;
+    public CardLast4Backfill(JdbcTemplate jdbcTemplate, EncryptionService encryptionService,
+                             @Value("${cards.last4-backfill.enabled:true}") boolean enabled,
+                             @Value("${cards.last4-backfill.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.encryptionService = encryptionService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (enabled) {
+            backfill();
+        }
+    }
+    public long backfill() {
+        long started = System.nanoTime();
+        long afterId = 0;
+        long filled = 0;
+        while (true) {
+            List<EncryptedNumber> batch = jdbcTemplate.query(
+                    "SELECT id, encrypted_card_number FROM cards WHERE last4 IS NULL AND id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new EncryptedNumber(rs.getLong(1), rs.getString(2)), afterId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Object[]> updates = new ArrayList<>(batch.size());
+            for (EncryptedNumber card : batch) {
+                try {
+                    String number = encryptionService.decrypt(card.encrypted());
+                    updates.add(new Object[]{number.substring(number.length() - 4), card.id()});
+                } catch (IllegalArgumentException e) {
+                    log.warn("Не удалось расшифровать номер карты ID {}: {}", card.id(), e.getMessage());
+                }
+            }
+            jdbcTemplate.batchUpdate("UPDATE cards SET last4 = ? WHERE id = ? AND last4 IS NULL", updates);
+            filled += updates.size();
+            afterId = batch.get(batch.size() - 1).id();
+        }
+        if (filled > 0) {
+            log.info("Заполнены последние цифры номера у {} карт за {} мс", filled, (System.nanoTime() - started) / 1_000_000);
+        }
+        return filled;
+    }
+    private record EncryptedNumber(long id, String encrypted) {
+    }
+}
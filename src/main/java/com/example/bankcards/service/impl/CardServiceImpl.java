@@ -1,6 +1,11 @@
 package com.example.bankcards.service.impl;
+import com.example.bankcards.config.replica.ReplicaRoutingDataSource;
+import com.example.bankcards.dto.card.BulkCardStatusRequest;
+import com.example.bankcards.dto.card.BulkCardStatusResponse;
+import com.example.bankcards.dto.card.CardBalanceResponse;
 import com.example.bankcards.dto.card.CardRequest;
 import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.dto.card.CardSearchFilter;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardNotFoundException;
@@ -8,19 +13,30 @@ import com.example.bankcards.exception.CardNumberAlreadyExistsException;
 import com.example.bankcards.exception.InvalidCardOperationException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardRepositoryCustom;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardOwnerIndex;
+import com.example.bankcards.service.CardResponseCache;
 import com.example.bankcards.service.CardService;
 import com.example.bankcards.service.EncryptionService;
 import com.example.bankcards.util.CardUtils; 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.example.bankcards.dto.card.CardUpdateRequest;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -29,8 +45,26 @@ public class CardServiceImpl implements CardService {
     private final UserRepository userRepository;
     private final EncryptionService encryptionService;
     private final CardUtils cardUtils; 
+    private final CardResponseCache cardResponseCache;
+    private final CardOwnerIndex cardOwnerIndex;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${cards.balances.max-ids:100}")
+    private int maxBalanceIds;
+    @Value("${cards.listing.max-limit:1000}")
+    private int maxListingLimit;
+    @Value("${cards.listing.export-fetch-size:1000}")
+    private int exportFetchSize;
+    @Value("${cards.search.max-limit:100}")
+    private int maxSearchLimit;
+    @Value("${cards.search.max-names:100}")
+    private int maxSearchNames;
+    @Value("${cards.bulk.chunk-size:10000}")
+    private int bulkChunkSize;
+    @Value("${cards.bulk.max-ids:100000}")
+    private int maxBulkIds;
     @Override
     @Transactional
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "create"}, histogram = true)
     public CardResponse createCard(CardRequest cardRequest) {
         log.info("Запрос на создание карты для пользователя ID: {}", cardRequest.getUserId());
         if (cardRequest.getBalance() != null && cardRequest.getBalance() < 0) {
@@ -47,45 +81,103 @@ public class CardServiceImpl implements CardService {
         }
         Card card = new Card();
         card.setEncryptedCardNumber(encryptedCardNumber);
+        card.setLast4(cardNumber.substring(cardNumber.length() - 4));
         card.setOwnerName(cardRequest.getOwnerName());
         card.setExpirationDate(cardRequest.getExpirationDate());
         card.setBalance(cardRequest.getBalance() != null ? cardRequest.getBalance() : 0.0);
         card.setUser(user);
         card.setStatus(CardUtils.determineCardStatus(cardRequest.getExpirationDate())); 
         Card savedCard = cardRepository.save(card);
+        cardOwnerIndex.putAfterCommit(savedCard.getId(), user.getId());
         log.info("Карта успешно создана с ID: {} для пользователя: {}", savedCard.getId(), user.getUsername());
         return CardUtils.mapToCardResponse(savedCard); 
     }
     @Override
-    @Transactional(readOnly = true)
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "get"}, histogram = true)
     public CardResponse getCardById(Long id) {
         log.debug("Запрос карты по ID: {}", id);
-        Card card = cardRepository.findById(id)
-                .orElseThrow(() -> new CardNotFoundException("Карта с ID " + id + " не найдена"));
-        cardUtils.checkCardOwnership(card); 
-        return CardUtils.mapToCardResponse(card); 
+        boolean checked = cardUtils.checkIndexedCardOwnership(id);
+        CardResponse card = cardResponseCache.get(id, this::loadFromPrimary);
+        if (!checked) {
+            cardUtils.checkCardOwnership(card.getUserId());
+            cardOwnerIndex.put(id, card.getUserId());
+        }
+        return card;
+    }
+    // промах кэша читается с primary: значение с отстающей реплики прожило бы в кэше весь TTL,
+    // хотя сброс после коммита изменения уже прошел
+    private CardResponse loadFromPrimary(Long cardId) {
+        TransactionTemplate primaryRead = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        primaryRead.setReadOnly(true);
+        primaryRead.setName(ReplicaRoutingDataSource.PRIMARY_READ);
+        return primaryRead.execute(status -> cardRepository.findById(cardId)
+                .map(CardUtils::mapToCardResponse)
+                .orElseThrow(() -> new CardNotFoundException("Карта с ID " + cardId + " не найдена")));
     }
     @Override
     @Transactional(readOnly = true)
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "list-user"}, histogram = true)
     public Page<CardResponse> getUserCards(Long userId, Pageable pageable) {
         log.debug("Запрос всех карт для пользователя ID: {} с пагинацией", userId);
-        Page<Card> cards = cardRepository.findByUserId(userId, pageable);
-        return cards.map(CardUtils::mapToCardResponse); 
+        return cardRepository.findCardResponsesByUserId(userId, pageable);
+    }
+    @Override
+    @Transactional(readOnly = true)
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "balances"}, histogram = true)
+    public List<CardBalanceResponse> getCardBalances(Long userId, Collection<Long> ids) {
+        log.debug("Запрос балансов {} карт пользователя ID: {}", ids.size(), userId);
+        if (ids.isEmpty() || ids.size() > maxBalanceIds) {
+            throw new InvalidCardOperationException("Количество карт в запросе должно быть от 1 до " + maxBalanceIds);
+        }
+        return cardRepository.findBalancesByIdInAndUserId(ids, userId);
     }
     @Override
     @Transactional(readOnly = true)
-    public List<CardResponse> getAllCards() {
-        log.debug("Запрос всех карт без пагинации");
-        List<Card> cards = cardRepository.findAll();
-        return cards.stream().map(CardUtils::mapToCardResponse).collect(Collectors.toList()); 
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "list-all"}, histogram = true)
+    public List<CardResponse> findCards(CardSearchFilter filter, long afterId, int limit) {
+        log.debug("Запрос карт после ID {} (не более {}), фильтр: {}", afterId, limit, filter);
+        if (limit < 1 || limit > maxListingLimit) {
+            throw new InvalidCardOperationException("Размер страницы должен быть от 1 до " + maxListingLimit);
+        }
+        return cardRepository.findCardResponsesAfter(filter, afterId, limit);
+    }
+    @Override
+    @Transactional(readOnly = true)
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "search"}, histogram = true)
+    public List<CardRepositoryCustom.CardSearchHit> searchCards(String query, CardSearchFilter filter,
+                                                               BigDecimal afterScore, long afterId, int limit) {
+        String text = query != null && !query.isBlank() ? query.strip() : null;
+        log.debug("Поиск карт по '{}', фильтр: {}, после ({}, {}), limit: {}", text, filter, afterScore, afterId, limit);
+        // короче трех символов у строки нет ни одной триграммы, и индекс по owner_name не поможет
+        if (text == null && (filter.getLast4() == null || filter.getLast4().isBlank())) {
+            throw new InvalidCardOperationException("Для поиска нужна часть имени владельца или последние 4 цифры номера");
+        }
+        if (text != null && (text.length() < 3 || text.length() > 50)) {
+            throw new InvalidCardOperationException("Строка поиска должна быть от 3 до 50 символов");
+        }
+        if (limit < 1 || limit > maxSearchLimit) {
+            throw new InvalidCardOperationException("Размер страницы должен быть от 1 до " + maxSearchLimit);
+        }
+        return cardRepository.searchCardResponses(text, filter, afterScore, afterId, limit, maxSearchNames);
+    }
+    @Override
+    @Transactional(readOnly = true)
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "export"}, histogram = true)
+    public void exportCards(CardSearchFilter filter, Consumer<CardResponse> consumer) {
+        log.info("Выгрузка карт, фильтр: {}", filter);
+        cardRepository.streamCardResponses(filter, exportFetchSize, consumer);
     }
     @Override
     @Transactional
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "update"}, histogram = true)
     public CardResponse updateCard(Long id, CardUpdateRequest cardUpdateRequest) {
         log.info("Запрос на обновление карты с ID: {}", id);
+        boolean checked = cardUtils.checkIndexedCardOwnership(id);
         Card card = cardRepository.findById(id)
                 .orElseThrow(() -> new CardNotFoundException("Карта с ID " + id + " не найдена"));
-        cardUtils.checkCardOwnership(card); 
+        if (!checked) {
+            cardUtils.checkCardOwnership(card);
+        }
         if (cardUpdateRequest.getOwnerName() != null && !cardUpdateRequest.getOwnerName().isBlank()) {
             card.setOwnerName(cardUpdateRequest.getOwnerName());
         }
@@ -94,11 +186,13 @@ public class CardServiceImpl implements CardService {
             card.setStatus(CardUtils.determineCardStatus(cardUpdateRequest.getExpirationDate())); 
         }
         Card updatedCard = cardRepository.save(card);
+        cardResponseCache.evictAfterCommit(id);
         log.info("Карта с ID {} успешно обновлена", id);
         return CardUtils.mapToCardResponse(updatedCard); 
     }
     @Override
     @Transactional
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "block"}, histogram = true)
     public CardResponse blockCard(Long id) {
         log.info("Запрос на блокировку карты с ID: {}", id);
         Card card = cardRepository.findById(id)
@@ -113,11 +207,13 @@ public class CardServiceImpl implements CardService {
         }
         card.setStatus(Card.Status.BLOCKED);
         Card blockedCard = cardRepository.save(card);
+        cardResponseCache.evictAfterCommit(id);
         log.info("Карта с ID {} успешно заблокирована", id);
         return CardUtils.mapToCardResponse(blockedCard); 
     }
     @Override
     @Transactional
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "activate"}, histogram = true)
     public CardResponse activateCard(Long id) {
         log.info("Запрос на активацию карты с ID: {}", id);
         Card card = cardRepository.findById(id)
@@ -132,18 +228,105 @@ public class CardServiceImpl implements CardService {
         }
         card.setStatus(Card.Status.ACTIVE);
         Card activatedCard = cardRepository.save(card);
+        cardResponseCache.evictAfterCommit(id);
         log.info("Карта с ID {} успешно активирована", id);
         return CardUtils.mapToCardResponse(activatedCard); 
     }
     @Override
     @Transactional
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "delete"}, histogram = true)
     public void deleteCard(Long id) {
         log.info("Запрос на удаление карты с ID: {}", id);
-        if (!cardRepository.existsById(id)) {
+        // карта только помечается удаленной, ее переводы и саму строку потом удаляет SoftDeletePurger
+        if (cardRepository.softDeleteById(id) == 0) {
             log.error("Попытка удалить несуществующую карту с ID: {}", id);
             throw new CardNotFoundException("Карта с ID " + id + " не найдена");
         }
-        cardRepository.deleteById(id);
+        cardResponseCache.evictAfterCommit(id);
+        cardOwnerIndex.removeAfterCommit(id);
         log.info("Карта с ID {} успешно удалена", id);
     }
+    /**
+     * Каждая пачка обновляется в своей транзакции, поэтому блокировки строк держатся недолго,
+     * а уже обработанные пачки сохраняются, даже если следующая завершится ошибкой.
+     */
+    @Override
+    @Timed(value = "bank.card.operation", extraTags = {"operation", "bulk-status"}, histogram = true)
+    public BulkCardStatusResponse bulkUpdateStatus(BulkCardStatusRequest request) {
+        BulkCardStatusRequest.Action action = request.getAction();
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean filtered = request.getUserId() != null || hasIds
+                || request.getExpiresFrom() != null || request.getExpiresTo() != null;
+        if (!filtered && action != BulkCardStatusRequest.Action.EXPIRE) {
+            throw new InvalidCardOperationException("Для массовой блокировки или активации нужен фильтр: userId, ids или срок действия");
+        }
+        if (hasIds && request.getIds().size() > maxBulkIds) {
+            throw new InvalidCardOperationException("Количество ID в запросе не должно превышать " + maxBulkIds);
+        }
+        // те же переходы, что у blockCard/activateCard: блокируется только активная карта, активируется только заблокированная
+        Card.Status target;
+        EnumSet<Card.Status> from;
+        LocalDate expiresBefore = null;
+        switch (action) {
+            case BLOCK -> {
+                target = Card.Status.BLOCKED;
+                from = EnumSet.of(Card.Status.ACTIVE);
+            }
+            case ACTIVATE -> {
+                target = Card.Status.ACTIVE;
+                from = EnumSet.of(Card.Status.BLOCKED);
+            }
+            default -> {
+                target = Card.Status.EXPIRED;
+                from = EnumSet.of(Card.Status.ACTIVE, Card.Status.BLOCKED);
+                expiresBefore = YearMonth.now().atDay(1);
+            }
+        }
+        if (request.getStatuses() != null && !request.getStatuses().isEmpty()) {
+            from.retainAll(request.getStatuses());
+        }
+        CardRepositoryCustom.StatusFilter filter = new CardRepositoryCustom.StatusFilter(
+                request.getUserId(),
+                hasIds ? request.getIds() : null,
+                request.getExpiresFrom() != null ? request.getExpiresFrom().atDay(1) : null,
+                request.getExpiresTo() != null ? request.getExpiresTo().atEndOfMonth() : null,
+                expiresBefore);
+        int chunkSize = request.getChunkSize() != null ? request.getChunkSize() : bulkChunkSize;
+        log.info("Массовая операция {} над картами: фильтр {}, исходные статусы {}, пачка {}", action, filter, from, chunkSize);
+        BulkCardStatusResponse response = new BulkCardStatusResponse();
+        response.setAction(action);
+        response.setTargetStatus(target);
+        long started = System.nanoTime();
+        long afterId = 0;
+        while (!from.isEmpty()) {
+            long chunkStarted = System.nanoTime();
+            long cursor = afterId;
+            CardRepositoryCustom.StatusChunk result = transactionTemplate.execute(status -> {
+                CardRepositoryCustom.StatusChunk chunk = cardRepository.updateStatusChunk(filter, from, target, cursor, chunkSize);
+                if (!chunk.updatedIds().isEmpty()) {
+                    cardResponseCache.evictAfterCommit(chunk.updatedIds().toArray(Long[]::new));
+                }
+                return chunk;
+            });
+            BulkCardStatusResponse.Chunk progress = new BulkCardStatusResponse.Chunk();
+            progress.setNumber(response.getChunks().size() + 1);
+            progress.setLastId(result.lastId());
+            progress.setScanned(result.scanned());
+            progress.setUpdated(result.updatedIds().size());
+            progress.setElapsedMs((System.nanoTime() - chunkStarted) / 1_000_000);
+            response.getChunks().add(progress);
+            response.setScanned(response.getScanned() + result.scanned());
+            response.setUpdated(response.getUpdated() + result.updatedIds().size());
+            log.debug("Пачка {}: просмотрено {}, обновлено {}, последний ID {}", progress.getNumber(),
+                    progress.getScanned(), progress.getUpdated(), progress.getLastId());
+            if (result.scanned() < chunkSize) {
+                break;
+            }
+            afterId = result.lastId();
+        }
+        response.setElapsedMs((System.nanoTime() - started) / 1_000_000);
+        log.info("Массовая операция {} завершена: обновлено {} карт за {} мс ({} пачек)", action,
+                response.getUpdated(), response.getElapsedMs(), response.getChunks().size());
+        return response;
+    }
 }
\ No newline at end of file
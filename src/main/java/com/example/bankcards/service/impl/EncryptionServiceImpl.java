@@ -5,9 +5,17 @@ import org.springframework.stereotype.Service;
 @Service
 @Slf4j
 public class EncryptionServiceImpl implements EncryptionService {
+    private static final String PREFIX = "encrypted_";
     @Override
     public String encrypt(String data) {
         log.debug("Шифрование данных: {}", data.substring(0, Math.min(4, data.length())) + "***");
-        return "encrypted_" + data;
+        return PREFIX + data;
+    }
+    @Override
+    public String decrypt(String data) {
+        if (!data.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Данные не зашифрованы этим сервисом");
+        }
+        return data.substring(PREFIX.length());
     }
 }
\ No newline at end of file
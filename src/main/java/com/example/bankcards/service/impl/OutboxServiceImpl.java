@@ -0,0 +1,153 @@
+package com.example.bankcards.service.impl;
+import com.example.bankcards.dto.transaction.TransactionResponse;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.repository.OutboxEventRepository;
+import com.example.bankcards.service.OutboxService;
+import com.example.bankcards.service.outbox.OutboxSink;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+@Service
+@Slf4j
+public class OutboxServiceImpl implements OutboxService {
+    public static final String AGGREGATE_CARD = "CARD";
+    public static final String EVENT_TRANSFER_COMPLETED = "TRANSFER_COMPLETED";
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxSink> sinks;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong deliveredTotal = new AtomicLong();
+    private final AtomicLong relayNanosTotal = new AtomicLong();
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+    @Value("${outbox.relay.max-attempts:20}")
+    private int maxAttempts;
+    public OutboxServiceImpl(OutboxEventRepository outboxEventRepository, List<OutboxSink> sinks, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sinks = sinks;
+        this.objectMapper = objectMapper;
+        FunctionCounter.builder("bank.outbox.delivered", deliveredTotal, AtomicLong::get)
+                .description("События outbox, доставленные во все sink")
+                .register(meterRegistry);
+        FunctionCounter.builder("bank.outbox.relay.time", relayNanosTotal,
+                        total -> total.get() / (double) TimeUnit.SECONDS.toNanos(1))
+                .description("Суммарное время ретрансляции outbox")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("bank.outbox.dead_letters", this, OutboxServiceImpl::getDeadLetterCount)
+                .description("События outbox, исчерпавшие попытки доставки")
+                .register(meterRegistry);
+    }
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueTransferCompleted(TransactionResponse transaction) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(AGGREGATE_CARD);
+        event.setAggregateId(transaction.getFromCardId());
+        event.setEventType(EVENT_TRANSFER_COMPLETED);
+        event.setPayload(toJson(transaction));
+        outboxEventRepository.save(event);
+        log.debug("Событие {} для карты {} записано в outbox", EVENT_TRANSFER_COMPLETED, transaction.getFromCardId());
+    }
+    @Override
+    @Transactional
+    public int relayBatch() {
+        long start = System.nanoTime();
+        List<OutboxEvent> claimed = outboxEventRepository.claimBatch(batchSize, maxAttempts);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        List<OutboxEvent> deliverable = withoutPendingPredecessors(claimed);
+        if (deliverable.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = deliverable.stream().map(OutboxEvent::getId).toList();
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.deliver(deliverable);
+            } catch (Exception e) {
+                log.error("Ошибка доставки {} событий outbox в sink {}: {}", deliverable.size(), sink.getName(), e.getMessage());
+                outboxEventRepository.markFailed(ids, truncate(sink.getName() + ": " + e.getMessage()));
+                logExhausted(deliverable);
+                return 0;
+            }
+        }
+        outboxEventRepository.deleteAllByIdIn(ids);
+        long elapsed = System.nanoTime() - start;
+        long total = deliveredTotal.addAndGet(ids.size());
+        long totalNanos = relayNanosTotal.addAndGet(elapsed);
+        log.debug("Outbox: доставлено {} событий за {} мкс, всего {} ({} событий/с)",
+                ids.size(), TimeUnit.NANOSECONDS.toMicros(elapsed), total,
+                totalNanos > 0 ? total * TimeUnit.SECONDS.toNanos(1) / totalNanos : 0);
+        return ids.size();
+    }
+    /**
+     * События, исчерпавшие {@code outbox.relay.max-attempts}: они остаются в таблице для разбора, но больше
+     * не доставляются и не задерживают последующие события своей карты.
+     */
+    public long getDeadLetterCount() {
+        return outboxEventRepository.countExhausted(maxAttempts);
+    }
+    public int getBatchSize() {
+        return batchSize;
+    }
+    public long getDeliveredTotal() {
+        return deliveredTotal.get();
+    }
+    public long getRelayNanosTotal() {
+        return relayNanosTotal.get();
+    }
+    private List<OutboxEvent> withoutPendingPredecessors(List<OutboxEvent> claimed) {
+        Set<Long> aggregateIds = new LinkedHashSet<>();
+        List<Long> claimedIds = new ArrayList<>(claimed.size());
+        long maxId = Long.MIN_VALUE;
+        for (OutboxEvent event : claimed) {
+            aggregateIds.add(event.getAggregateId());
+            claimedIds.add(event.getId());
+            maxId = Math.max(maxId, event.getId());
+        }
+        Set<Long> blocked = new HashSet<>(
+                outboxEventRepository.findAggregatesWithPendingPredecessors(aggregateIds, maxId, claimedIds, maxAttempts));
+        if (blocked.isEmpty()) {
+            return claimed;
+        }
+        log.debug("Outbox: события карт {} отложены до доставки предыдущих событий", blocked);
+        return claimed.stream().filter(event -> !blocked.contains(event.getAggregateId())).toList();
+    }
+    private void logExhausted(List<OutboxEvent> failed) {
+        List<Long> exhausted = failed.stream()
+                .filter(event -> event.getAttempts() + 1 >= maxAttempts)
+                .map(OutboxEvent::getId)
+                .toList();
+        if (!exhausted.isEmpty()) {
+            log.warn("Outbox: события {} исчерпали {} попыток доставки и больше не отправляются", exhausted, maxAttempts);
+        }
+    }
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие outbox", e);
+        }
+    }
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.bankcards.service.impl;
+import com.example.bankcards.dto.profiling.HotspotEntry;
+import com.example.bankcards.dto.profiling.ProfilingRequest;
+import com.example.bankcards.dto.profiling.ProfilingStatusResponse;
+import com.example.bankcards.dto.profiling.ProfilingSummaryResponse;
+import com.example.bankcards.exception.ProfilingInProgressException;
+import com.example.bankcards.exception.RecordingNotFoundException;
+import com.example.bankcards.monitoring.jfr.JwtValidationEvent;
+import com.example.bankcards.monitoring.jfr.RepositoryCallEvent;
+import com.example.bankcards.monitoring.jfr.TransferEvent;
+import com.example.bankcards.service.ProfilingService;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+@Service
+@Slf4j
+public class ProfilingServiceImpl implements ProfilingService {
+    private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    private static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+    private static final String THREAD_PARK = "jdk.ThreadPark";
+    private static final String GARBAGE_COLLECTION = "jdk.GarbageCollection";
+    private static final String APPLICATION_EVENT_PREFIX = "com.example.bankcards.";
+    private final AtomicLong idSequence = new AtomicLong();
+    private final Map<Long, RecordingInfo> recordings = new LinkedHashMap<>();
+    @Value("${profiling.directory:${java.io.tmpdir}/bank-jfr}")
+    private Path directory;
+    @Value("${profiling.keep-recordings:5}")
+    private int keepRecordings;
+    @Value("${profiling.repository-call-threshold-ms:1}")
+    private long repositoryCallThresholdMs;
+    @Override
+    public synchronized ProfilingStatusResponse start(ProfilingRequest request) {
+        for (RecordingInfo info : recordings.values()) {
+            if (info.recording.getState() == RecordingState.RUNNING || info.recording.getState() == RecordingState.DELAYED) {
+                throw new ProfilingInProgressException("Запись " + info.id + " еще выполняется");
+            }
+        }
+        long id = idSequence.incrementAndGet();
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve("bank-" + id + ".jfr");
+            Recording recording = new Recording(Configuration.getConfiguration(request.getProfile()));
+            recording.setName("bank-" + id);
+            recording.enable(TransferEvent.class);
+            recording.enable(JwtValidationEvent.class);
+            recording.enable(RepositoryCallEvent.class).withThreshold(Duration.ofMillis(repositoryCallThresholdMs));
+            recording.setToDisk(true);
+            recording.setDestination(file);
+            recording.setDuration(Duration.ofSeconds(request.getDurationSeconds()));
+            recording.start();
+            RecordingInfo info = new RecordingInfo(id, request.getProfile(), Instant.now(), request.getDurationSeconds(), recording, file);
+            recordings.put(id, info);
+            evictOldRecordings();
+            log.info("Запущена JFR-запись {} (профиль {}, {} с)", id, request.getProfile(), request.getDurationSeconds());
+            return toStatus(info);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать файл JFR-записи", e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Некорректная конфигурация JFR: " + request.getProfile(), e);
+        }
+    }
+    @Override
+    public synchronized ProfilingStatusResponse getStatus(Long id) {
+        return toStatus(find(id));
+    }
+    @Override
+    public synchronized ProfilingStatusResponse stop(Long id) {
+        RecordingInfo info = find(id);
+        if (info.recording.getState() == RecordingState.RUNNING) {
+            info.recording.stop();
+            log.info("JFR-запись {} остановлена досрочно", id);
+        }
+        return toStatus(info);
+    }
+    @Override
+    public synchronized Path getRecordingFile(Long id) {
+        RecordingInfo info = find(id);
+        if (info.recording.getState() == RecordingState.RUNNING || !Files.exists(info.file)) {
+            throw new ProfilingInProgressException("Запись " + id + " еще выполняется");
+        }
+        return info.file;
+    }
+    @Override
+    public ProfilingSummaryResponse summarize(Long id, int top) {
+        Path file = getRecordingFile(id);
+        Map<String, long[]> hotMethods = new HashMap<>();
+        Map<String, long[]> allocations = new HashMap<>();
+        Map<String, long[]> locks = new HashMap<>();
+        Map<String, long[]> applicationEvents = new HashMap<>();
+        long totalEvents = 0;
+        long gcCount = 0;
+        long gcTotalPauseNanos = 0;
+        long gcMaxPauseNanos = 0;
+        try (RecordingFile recordingFile = new RecordingFile(file)) {
+            while (recordingFile.hasMoreEvents()) {
+                RecordedEvent event = recordingFile.readEvent();
+                totalEvents++;
+                String type = event.getEventType().getName();
+                switch (type) {
+                    case EXECUTION_SAMPLE -> accumulate(hotMethods, topFrame(event.getStackTrace()), 0);
+                    case ALLOCATION_SAMPLE -> accumulate(allocations,
+                            className(event.getClass("objectClass")) + " @ " + callerFrame(event.getStackTrace()), event.getLong("weight"));
+                    case MONITOR_ENTER -> accumulate(locks,
+                            "monitor " + className(event.getClass("monitorClass")) + " @ " + callerFrame(event.getStackTrace()),
+                            event.getDuration().toNanos());
+                    case THREAD_PARK -> accumulate(locks,
+                            "park " + className(event.getClass("parkedClass")) + " @ " + callerFrame(event.getStackTrace()),
+                            event.getDuration().toNanos());
+                    case GARBAGE_COLLECTION -> {
+                        gcCount++;
+                        gcTotalPauseNanos += event.getDuration("sumOfPauses").toNanos();
+                        gcMaxPauseNanos = Math.max(gcMaxPauseNanos, event.getDuration("longestPause").toNanos());
+                    }
+                    default -> {
+                        if (type.startsWith(APPLICATION_EVENT_PREFIX)) {
+                            accumulate(applicationEvents, type.substring(APPLICATION_EVENT_PREFIX.length()), event.getDuration().toNanos());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать JFR-запись " + id, e);
+        }
+        ProfilingSummaryResponse response = new ProfilingSummaryResponse();
+        response.setRecordingId(id);
+        response.setTotalEvents(totalEvents);
+        response.setHotMethods(topEntries(hotMethods, top, false, false));
+        response.setAllocationHotspots(topEntries(allocations, top, true, false));
+        response.setLockContention(topEntries(locks, top, false, true));
+        response.setGcCount(gcCount);
+        response.setGcTotalPauseMillis(gcTotalPauseNanos / 1_000_000.0);
+        response.setGcMaxPauseMillis(gcMaxPauseNanos / 1_000_000.0);
+        response.setApplicationEvents(topEntries(applicationEvents, top, false, true));
+        return response;
+    }
+    @PreDestroy
+    public synchronized void closeRecordings() {
+        recordings.values().forEach(info -> info.recording.close());
+    }
+    private static void accumulate(Map<String, long[]> target, String key, long value) {
+        long[] totals = target.computeIfAbsent(key, k -> new long[2]);
+        totals[0]++;
+        totals[1] += value;
+    }
+    private static List<HotspotEntry> topEntries(Map<String, long[]> source, int top, boolean bytes, boolean nanos) {
+        Comparator<Map.Entry<String, long[]>> order = bytes || nanos
+                ? Comparator.comparingLong(entry -> entry.getValue()[1])
+                : Comparator.comparingLong(entry -> entry.getValue()[0]);
+        return source.entrySet().stream()
+                .sorted(order.reversed())
+                .limit(top)
+                .map(entry -> new HotspotEntry(entry.getKey(), entry.getValue()[0],
+                        bytes ? entry.getValue()[1] : null,
+                        nanos ? entry.getValue()[1] / 1_000_000.0 : null))
+                .toList();
+    }
+    private static String topFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "<unknown>";
+        }
+        RecordedFrame frame = stackTrace.getFrames().get(0);
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+    /**
+     * Первый кадр вне JDK: для блокировок и аллокаций верхний кадр почти всегда
+     * {@code Unsafe.park} или копирование массива и ничего не говорит о месте в коде приложения.
+     */
+    private static String callerFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "<unknown>";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName();
+            }
+        }
+        return topFrame(stackTrace);
+    }
+    private static String className(RecordedClass recordedClass) {
+        return recordedClass != null ? recordedClass.getName() : "<unknown>";
+    }
+    private RecordingInfo find(Long id) {
+        RecordingInfo info = recordings.get(id);
+        if (info == null) {
+            throw new RecordingNotFoundException("JFR-запись с ID " + id + " не найдена");
+        }
+        return info;
+    }
+    private void evictOldRecordings() {
+        Iterator<RecordingInfo> iterator = recordings.values().iterator();
+        while (recordings.size() > keepRecordings && iterator.hasNext()) {
+            RecordingInfo oldest = iterator.next();
+            if (oldest.recording.getState() == RecordingState.RUNNING) {
+                continue;
+            }
+            oldest.recording.close();
+            try {
+                Files.deleteIfExists(oldest.file);
+            } catch (IOException e) {
+                log.warn("Не удалось удалить файл JFR-записи {}: {}", oldest.file, e.getMessage());
+            }
+            iterator.remove();
+        }
+    }
+    private static ProfilingStatusResponse toStatus(RecordingInfo info) {
+        ProfilingStatusResponse response = new ProfilingStatusResponse();
+        response.setId(info.id);
+        response.setProfile(info.profile);
+        response.setState(info.recording.getState().name());
+        response.setStartedAt(info.startedAt);
+        response.setDurationSeconds(info.durationSeconds);
+        try {
+            response.setFileSizeBytes(Files.exists(info.file) ? Files.size(info.file) : null);
+        } catch (IOException e) {
+            response.setFileSizeBytes(null);
+        }
+        return response;
+    }
+    private record RecordingInfo(long id, String profile, Instant startedAt, int durationSeconds,
+                                 Recording recording, Path file) {
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.bankcards.service.impl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+/**
+ * Окончательно удаляет карты и пользователей, помеченные {@code deleted_at} раньше чем {@code purge.grace-period}
+ * назад: сначала переводы таких карт, затем сами карты, затем пользователей без карт. Каждая пачка — отдельный
+ * короткий {@code DELETE} в своей транзакции с паузой между пачками, так что блокировки и объем WAL за раз
+ * ограничены размером пачки. Как и {@link CardExpirySweeper}, работает только узел, взявший advisory-блокировку.
+ */
+@Component
+@ConditionalOnProperty(name = "purge.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class SoftDeletePurger {
+    private static final String DELETED = "deleted_at < now() - ? * INTERVAL '1 millisecond'";
+    private static final List<Step> STEPS = List.of(
+            new Step("transactions", "DELETE FROM transactions WHERE id IN (SELECT t.id FROM transactions t " +
+                    "JOIN cards c ON c.id = t.from_card_id WHERE c." + DELETED + " LIMIT ?)"),
+            new Step("transactions", "DELETE FROM transactions WHERE id IN (SELECT t.id FROM transactions t " +
+                    "JOIN cards c ON c.id = t.to_card_id WHERE c." + DELETED + " LIMIT ?)"),
+            // переводы, созданные уже после выборки пачки, удалит ON DELETE CASCADE — их единицы
+            new Step("cards", "DELETE FROM cards WHERE id IN (SELECT id FROM cards WHERE " + DELETED + " LIMIT ?)"),
+            new Step("users", "DELETE FROM users WHERE id IN (SELECT u.id FROM users u WHERE u." + DELETED +
+                    " AND NOT EXISTS (SELECT 1 FROM cards c WHERE c.user_id = u.id) LIMIT ?)"));
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    @Value("${purge.grace-period:1h}")
+    private Duration gracePeriod;
+    @Value("${purge.batch-size:500}")
+    private int batchSize;
+    @Value("${purge.pause-ms:50}")
+    private long pauseMs;
+    @Value("${purge.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+    @Value("${purge.lock-key:7305417}")
+    private long lockKey;
+    public SoftDeletePurger(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+    @Scheduled(fixedDelayString = "${purge.interval-ms:60000}")
+    public void purge() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome;
+        try {
+            outcome = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+                if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                    log.debug("Очистка удаленных записей уже выполняется на другом узле");
+                    return "skipped";
+                }
+                try {
+                    purgeBatches();
+                    return "success";
+                } finally {
+                    advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+                }
+            });
+        } catch (Exception e) {
+            log.error("Ошибка очистки удаленных записей: {}", e.getMessage(), e);
+            outcome = "error";
+        }
+        sample.stop(Timer.builder("bank.purge.run")
+                .description("Проходы очистки удаленных карт и пользователей")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+    private void purgeBatches() {
+        long graceMillis = gracePeriod.toMillis();
+        int batches = 0;
+        for (Step step : STEPS) {
+            int deleted;
+            do {
+                if (batches == maxBatchesPerRun) {
+                    log.info("Очистка остановлена на лимите {} пачек, продолжится при следующем запуске", maxBatchesPerRun);
+                    return;
+                }
+                if (batches++ > 0 && !pause()) {
+                    return;
+                }
+                deleted = jdbcTemplate.update(step.sql(), graceMillis, batchSize);
+                if (deleted > 0) {
+                    Counter.builder("bank.purge.deleted")
+                            .description("Строки, окончательно удаленные очисткой")
+                            .tag("table", step.table())
+                            .register(meterRegistry)
+                            .increment(deleted);
+                    log.debug("Очистка {}: удалено {} строк", step.table(), deleted);
+                }
+            } while (deleted == batchSize);
+        }
+    }
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    private boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lockKey);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+    private record Step(String table, String sql) {
+    }
+}
@@ -11,8 +11,14 @@ import com.example.bankcards.exception.SameCardTransferException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.TransactionRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardOwnerIndex;
+import com.example.bankcards.service.CardResponseCache;
+import com.example.bankcards.service.OutboxService;
 import com.example.bankcards.service.TransactionService;
-import lombok.RequiredArgsConstructor;
+import com.example.bankcards.service.VelocityService;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,31 +26,71 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class TransactionServiceImpl implements TransactionService {
     private final TransactionRepository transactionRepository;
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
+    private final OutboxService outboxService;
+    private final VelocityService velocityService;
+    private final CardResponseCache cardResponseCache;
+    private final CardOwnerIndex cardOwnerIndex;
+    private final Timer rowLockTimer;
+    public TransactionServiceImpl(TransactionRepository transactionRepository, CardRepository cardRepository,
+                                  UserRepository userRepository, OutboxService outboxService,
+                                  VelocityService velocityService, CardResponseCache cardResponseCache,
+                                  CardOwnerIndex cardOwnerIndex, MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.outboxService = outboxService;
+        this.velocityService = velocityService;
+        this.cardResponseCache = cardResponseCache;
+        this.cardOwnerIndex = cardOwnerIndex;
+        // Postgres не отдает время ожидания отдельно от запроса: таймер покрывает оба SELECT ... FOR UPDATE целиком
+        this.rowLockTimer = Timer.builder("bank.cards.row_lock.acquire")
+                .description("Захват блокировок строк cards при переводе, включая ожидание")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
     @Override
     @Transactional
+    @Timed(value = "bank.transfer", histogram = true)
     public TransactionResponse transfer(TransactionRequest request) {
         log.info("Запрос на перевод: с карты {} на карту {}, сумма {}", request.getFromCardId(), request.getToCardId(), request.getAmount());
         Long currentUserId = getCurrentUserId();
-        Card fromCard = cardRepository.findById(request.getFromCardId())
-                .orElseThrow(() -> new CardNotFoundException("Карта-отправитель с ID " + request.getFromCardId() + " не найдена"));
-        Card toCard = cardRepository.findById(request.getToCardId())
-                .orElseThrow(() -> new CardNotFoundException("Карта-получатель с ID " + request.getToCardId() + " не найдена"));
-        if (fromCard.getId().equals(toCard.getId())) {
-            log.error("Попытка перевода на ту же карту: {}", fromCard.getId());
+        // чужая карта по индексу отклоняется до блокировок строк, которые задержали бы переводы ее владельца
+        long indexedOwner = cardOwnerIndex.ownerOf(request.getFromCardId());
+        if (indexedOwner != CardOwnerIndex.UNKNOWN && indexedOwner != currentUserId) {
+            log.error("Попытка перевода с чужой карты: {} пользователем: {}", request.getFromCardId(), currentUserId);
+            throw new InvalidCardOperationException("Вы не можете использовать эту карту для перевода");
+        }
+        velocityService.reserveTransfer(currentUserId, request.getFromCardId(), request.getToCardId(), request.getAmount());
+        if (request.getFromCardId().equals(request.getToCardId())) {
+            log.error("Попытка перевода на ту же карту: {}", request.getFromCardId());
             throw new SameCardTransferException("Нельзя выполнить перевод на ту же карту");
         }
+        Card fromCard;
+        Card toCard;
+        long lockStart = System.nanoTime();
+        if (request.getFromCardId() < request.getToCardId()) {
+            fromCard = lockFromCard(request.getFromCardId());
+            toCard = lockToCard(request.getToCardId());
+        } else {
+            toCard = lockToCard(request.getToCardId());
+            fromCard = lockFromCard(request.getFromCardId());
+        }
+        rowLockTimer.record(System.nanoTime() - lockStart, TimeUnit.NANOSECONDS);
         if (!fromCard.getUser().getId().equals(currentUserId)) {
             log.error("Попытка перевода с чужой карты: {} пользователем: {}", fromCard.getId(), currentUserId);
             throw new InvalidCardOperationException("Вы не можете использовать эту карту для перевода");
         }
+        if (indexedOwner == CardOwnerIndex.UNKNOWN) {
+            cardOwnerIndex.put(fromCard.getId(), currentUserId);
+        }
         if (fromCard.getStatus() != Card.Status.ACTIVE) {
             log.error("Карта-отправитель ID {} не активна: {}", fromCard.getId(), fromCard.getStatus());
             throw new InvalidCardOperationException("Карта-отправитель не активна");
@@ -61,14 +107,25 @@ public class TransactionServiceImpl implements TransactionService {
         toCard.setBalance(toCard.getBalance() + request.getAmount());
         cardRepository.save(fromCard);
         cardRepository.save(toCard);
+        cardResponseCache.evictAfterCommit(fromCard.getId(), toCard.getId());
         Transaction transaction = new Transaction();
         transaction.setFromCard(fromCard);
         transaction.setToCard(toCard);
         transaction.setAmount(request.getAmount());
         transaction.setStatus(Transaction.Status.SUCCESS);
         Transaction savedTransaction = transactionRepository.save(transaction);
+        TransactionResponse response = mapToResponse(savedTransaction);
+        outboxService.enqueueTransferCompleted(response);
         log.info("Перевод успешно выполнен, ID транзакции: {}", savedTransaction.getId());
-        return mapToResponse(savedTransaction);
+        return response;
+    }
+    private Card lockFromCard(Long id) {
+        return cardRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new CardNotFoundException("Карта-отправитель с ID " + id + " не найдена"));
+    }
+    private Card lockToCard(Long id) {
+        return cardRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new CardNotFoundException("Карта-получатель с ID " + id + " не найдена"));
     }
     private TransactionResponse mapToResponse(Transaction transaction) {
         TransactionResponse response = new TransactionResponse();
@@ -87,6 +144,10 @@ public class TransactionServiceImpl implements TransactionService {
             throw new com.example.bankcards.exception.AuthenticationException("Пользователь не аутентифицирован");
         }
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        // JwtRequestFilter кладет в контекст сущность User, как и в CardUtils повторный запрос в базу не нужен
+        if (userDetails instanceof User principal && principal.getId() != null) {
+            return principal.getId();
+        }
         User user = userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new com.example.bankcards.exception.UserNotFoundException("Пользователь не найден"));
         return user.getId();
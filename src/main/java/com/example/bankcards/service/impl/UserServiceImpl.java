@@ -5,13 +5,17 @@ import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.exception.UsernameAlreadyExistsException;
+import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.RoleRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardOwnerIndex;
+import com.example.bankcards.service.CardResponseCache;
 import com.example.bankcards.service.UserService;
 import com.example.bankcards.util.UserUtils; 
 import com.example.bankcards.mapper.UserMapper; 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,9 +27,12 @@ import java.util.stream.Collectors;
 @Slf4j
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final CardRepository cardRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserUtils userUtils; 
     private final UserMapper userMapper; 
+    private final CardResponseCache cardResponseCache;
+    private final CardOwnerIndex cardOwnerIndex;
     @Override
     @Transactional
     public UserResponse createUser(UserRequest userRequest) {
@@ -55,7 +62,7 @@ public class UserServiceImpl implements UserService {
     @Transactional(readOnly = true)
     public List<UserResponse> getAllUsers() {
         log.debug("Запрос всех пользователей");
-        List<User> users = userRepository.findAll();
+        List<User> users = userRepository.findAll(Sort.by("id"));
         return users.stream().map(userMapper::mapToUserResponse).collect(Collectors.toList()); 
     }
     @Override
@@ -84,11 +91,16 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public void deleteUser(Long id) {
         log.info("Запрос на удаление пользователя с ID: {}", id);
-        if (!userRepository.existsById(id)) {
+        if (userRepository.softDeleteById(id) == 0) {
             log.error("Попытка удалить несуществующего пользователя с ID: {}", id);
             throw new UserNotFoundException("Пользователь с ID " + id + " не найден");
         }
-        userRepository.deleteById(id);
+        // id карт читаются до пометки: по ним индекс владельцев удаляет записи без прохода по всей таблице
+        List<Long> cardIds = cardRepository.findIdsByUserId(id);
+        int cards = cardRepository.softDeleteByUserId(id);
+        log.debug("Помечено удаленными карт пользователя {}: {}", id, cards);
+        cardResponseCache.evictUserCardsAfterCommit(id);
+        cardOwnerIndex.removeAfterCommit(cardIds.stream().mapToLong(Long::longValue).toArray());
         log.info("Пользователь с ID {} успешно удален", id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,213 @@
+package com.example.bankcards.service.impl;
+import com.example.bankcards.dto.transaction.TransferVelocitySample;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.exception.VelocityLimitExceededException;
+import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.service.VelocityService;
+import com.example.bankcards.util.SlidingWindowCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+@Service
+@Slf4j
+public class VelocityServiceImpl implements VelocityService {
+    public static final String RULE_CARD_TRANSFERS_PER_MINUTE = "CARD_TRANSFERS_PER_MINUTE";
+    public static final String RULE_USER_AMOUNT_PER_HOUR = "USER_AMOUNT_PER_HOUR";
+    public static final String RULE_USER_RECIPIENTS_PER_DAY = "USER_RECIPIENTS_PER_DAY";
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate readOnly;
+    private final Map<Long, SlidingWindowCounter> cardTransfers = new ConcurrentHashMap<>();
+    private final Map<Long, SlidingWindowCounter> userAmounts = new ConcurrentHashMap<>();
+    // вложенные карты меняются только внутри compute по id пользователя
+    private final Map<Long, Map<Long, Long>> userRecipients = new ConcurrentHashMap<>();
+    @Value("${velocity.enabled:true}")
+    private boolean enabled;
+    @Value("${velocity.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+    @Value("${velocity.max-transfers-per-card-per-minute:10}")
+    private long maxTransfersPerCardPerMinute;
+    @Value("${velocity.max-amount-per-user-per-hour:100000}")
+    private double maxAmountPerUserPerHour;
+    @Value("${velocity.max-distinct-recipients-per-day:20}")
+    private int maxDistinctRecipientsPerDay;
+    public VelocityServiceImpl(TransactionRepository transactionRepository, PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+    @Override
+    public void reserveTransfer(Long userId, Long fromCardId, Long toCardId, Double amount) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long cents = toCents(amount);
+        if (!tryAdd(cardTransfers, fromCardId, MINUTE_MILLIS, now, 1, maxTransfersPerCardPerMinute)) {
+            log.warn("Превышен лимит переводов в минуту для карты ID {}", fromCardId);
+            throw new VelocityLimitExceededException(RULE_CARD_TRANSFERS_PER_MINUTE,
+                    "Превышено допустимое количество переводов с карты в минуту");
+        }
+        if (!tryAdd(userAmounts, userId, HOUR_MILLIS, now, cents, toCents(maxAmountPerUserPerHour))) {
+            subtract(cardTransfers, fromCardId, now, 1);
+            log.warn("Превышен лимит суммы переводов в час для пользователя ID {}", userId);
+            throw new VelocityLimitExceededException(RULE_USER_AMOUNT_PER_HOUR,
+                    "Превышена допустимая сумма переводов в час");
+        }
+        Long[] previous = new Long[1];
+        if (!tryAddRecipient(userId, toCardId, now, previous)) {
+            subtract(cardTransfers, fromCardId, now, 1);
+            subtract(userAmounts, userId, now, cents);
+            log.warn("Превышен лимит различных получателей в сутки для пользователя ID {}", userId);
+            throw new VelocityLimitExceededException(RULE_USER_RECIPIENTS_PER_DAY,
+                    "Превышено допустимое количество различных получателей в сутки");
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        subtract(cardTransfers, fromCardId, now, 1);
+                        subtract(userAmounts, userId, now, cents);
+                        removeRecipient(userId, toCardId, now, previous[0]);
+                    }
+                }
+            });
+        }
+    }
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (rebuildOnStartup) {
+            rebuildFromHistory();
+        }
+    }
+    /**
+     * Заменяет счетчики восстановленными по успешным транзакциям за последние сутки.
+     */
+    public void rebuildFromHistory() {
+        if (!enabled) {
+            return;
+        }
+        cardTransfers.clear();
+        userAmounts.clear();
+        userRecipients.clear();
+        LocalDateTime since = LocalDateTime.now().minusDays(1);
+        ZoneId zone = ZoneId.systemDefault();
+        long restored = readOnly.execute(status -> {
+            long count = 0;
+            try (Stream<TransferVelocitySample> samples = transactionRepository.streamVelocitySamplesSince(since, Transaction.Status.SUCCESS)) {
+                for (TransferVelocitySample sample : (Iterable<TransferVelocitySample>) samples::iterator) {
+                    record(sample.getUserId(), sample.getFromCardId(), sample.getToCardId(), sample.getAmount(),
+                            sample.getTimestamp().atZone(zone).toInstant().toEpochMilli());
+                    count++;
+                }
+            }
+            return count;
+        });
+        log.info("Счетчики velocity восстановлены по {} транзакциям за последние сутки", restored);
+    }
+    @Scheduled(fixedDelayString = "${velocity.cleanup-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        // удаление через computeIfPresent идет под той же блокировкой ключа, что и резервирование
+        cardTransfers.keySet().forEach(id -> cardTransfers.computeIfPresent(id,
+                (key, counter) -> counter.sum(now) == 0 ? null : counter));
+        userAmounts.keySet().forEach(id -> userAmounts.computeIfPresent(id,
+                (key, counter) -> counter.sum(now) == 0 ? null : counter));
+        userRecipients.keySet().forEach(id -> userRecipients.computeIfPresent(id, (key, recipients) -> {
+            recipients.values().removeIf(seen -> now - seen >= DAY_MILLIS);
+            return recipients.isEmpty() ? null : recipients;
+        }));
+    }
+    private void record(Long userId, Long fromCardId, Long toCardId, Double amount, long timestamp) {
+        tryAdd(cardTransfers, fromCardId, MINUTE_MILLIS, timestamp, 1, Long.MAX_VALUE);
+        tryAdd(userAmounts, userId, HOUR_MILLIS, timestamp, toCents(amount), Long.MAX_VALUE);
+        userRecipients.compute(userId, (id, recipients) -> {
+            Map<Long, Long> target = recipients != null ? recipients : new HashMap<>();
+            target.merge(toCardId, timestamp, Math::max);
+            return target;
+        });
+    }
+    /**
+     * Проверка и добавление выполняются внутри {@code compute}, то есть под блокировкой ключа в
+     * {@link ConcurrentHashMap}: второй перевод по тому же ключу увидит уже учтенный первый.
+     */
+    private static boolean tryAdd(Map<Long, SlidingWindowCounter> counters, Long key, long windowMillis,
+                                  long now, long delta, long limit) {
+        boolean[] added = new boolean[1];
+        counters.compute(key, (id, counter) -> {
+            SlidingWindowCounter target = counter != null ? counter : new SlidingWindowCounter(windowMillis, 60);
+            if (target.sum(now) + delta > limit) {
+                return counter;
+            }
+            target.add(now, delta);
+            added[0] = true;
+            return target;
+        });
+        return added[0];
+    }
+    private static void subtract(Map<Long, SlidingWindowCounter> counters, Long key, long timestamp, long delta) {
+        counters.computeIfPresent(key, (id, counter) -> {
+            counter.subtract(timestamp, delta);
+            return counter;
+        });
+    }
+    private boolean tryAddRecipient(Long userId, Long toCardId, long now, Long[] previous) {
+        boolean[] added = new boolean[1];
+        userRecipients.compute(userId, (id, recipients) -> {
+            Map<Long, Long> target = recipients != null ? recipients : new HashMap<>();
+            if (!isRecentRecipient(target, toCardId, now) && countRecent(target, now) >= maxDistinctRecipientsPerDay) {
+                return recipients;
+            }
+            previous[0] = target.put(toCardId, now);
+            added[0] = true;
+            return target;
+        });
+        return added[0];
+    }
+    private void removeRecipient(Long userId, Long toCardId, long timestamp, Long previous) {
+        userRecipients.computeIfPresent(userId, (id, recipients) -> {
+            if (Objects.equals(recipients.get(toCardId), timestamp)) {
+                if (previous == null) {
+                    recipients.remove(toCardId);
+                } else {
+                    recipients.put(toCardId, previous);
+                }
+            }
+            return recipients.isEmpty() ? null : recipients;
+        });
+    }
+    private static boolean isRecentRecipient(Map<Long, Long> recipients, Long toCardId, long now) {
+        Long seen = recipients.get(toCardId);
+        return seen != null && now - seen < DAY_MILLIS;
+    }
+    private static int countRecent(Map<Long, Long> recipients, long now) {
+        int count = 0;
+        for (Long seen : recipients.values()) {
+            if (now - seen < DAY_MILLIS) {
+                count++;
+            }
+        }
+        return count;
+    }
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 @Service
@@ -20,6 +21,7 @@ public class AuthServiceImpl implements AuthService {
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
     @Override
+    @Timed(value = "bank.auth.login", histogram = true)
     public AuthResponse authenticate(AuthRequest authRequest) {
         log.debug("Начало процесса аутентификации для пользователя: {}", authRequest.getUsername());
         Authentication authentication = authenticationManager.authenticate(
@@ -0,0 +1,89 @@
+package com.example.bankcards.service.impl.cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+/**
+ * Держит отдельное соединение с primary (вне пула) и применяет сбросы кэша карт, опубликованные
+ * другими узлами. После каждого (пере)подключения кэш очищается целиком: уведомления, пришедшие
+ * пока соединения не было, потеряны.
+ */
+@Component
+@ConditionalOnExpression("${card-cache.enabled:true} and ${card-cache.notify.enabled:false}")
+@Slf4j
+public class CardCacheNotificationListener {
+    private final CardResponseCacheImpl cache;
+    private final DataSourceProperties dataSourceProperties;
+    private final Counter received;
+    private volatile boolean running;
+    private Thread thread;
+    @Value("${card-cache.notify.poll-timeout-ms:1000}")
+    private int pollTimeoutMs;
+    @Value("${card-cache.notify.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+    public CardCacheNotificationListener(CardResponseCacheImpl cache, DataSourceProperties dataSourceProperties,
+                                         MeterRegistry meterRegistry) {
+        this.cache = cache;
+        this.dataSourceProperties = dataSourceProperties;
+        this.received = Counter.builder("bank.card_cache.remote_evictions")
+                .description("Сбросы кэша карт, полученные через LISTEN/NOTIFY")
+                .register(meterRegistry);
+    }
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("card-cache-listener").start(this::listen);
+    }
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join(pollTimeoutMs * 2L);
+        }
+    }
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN \"" + cache.getChannel() + "\"");
+                }
+                cache.evictAll();
+                log.info("Подписка на сбросы кэша карт через канал {}", cache.getChannel());
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        cache.applyRemoteEviction(notification.getParameter());
+                        received.increment();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Соединение LISTEN для кэша карт потеряно: {}; повтор через {} мс", e.getMessage(), reconnectDelayMs);
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
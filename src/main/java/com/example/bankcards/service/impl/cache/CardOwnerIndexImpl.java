@@ -0,0 +1,149 @@
+package com.example.bankcards.service.impl.cache;
+import com.example.bankcards.service.CardOwnerIndex;
+import com.example.bankcards.util.LongLongHashMap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+/**
+ * Индекс id карты → id владельца в памяти узла для проверки владельца без запроса в БД. При старте
+ * заполняется потоковым чтением {@code cards}, дальше — созданием и удалением карт на этом узле и картами,
+ * которые узел загрузил сам. Удаление, выполненное на другом узле, оставляет в индексе лишнюю запись:
+ * она безвредна, потому что после проверки владельца карта все равно читается из БД.
+ * <p>
+ * Перестроение заполняет новую таблицу, пока старая продолжает обслуживать запросы. Изменения, пришедшие
+ * за это время, записываются в журнал и применяются к новой таблице перед подменой, поэтому карта,
+ * удаленная во время чтения, не возвращается в индекс из уже прочитанной строки.
+ */
+@Service
+@Slf4j
+public class CardOwnerIndexImpl implements CardOwnerIndex {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Object rebuildLock = new Object();
+    private volatile LongLongHashMap owners;
+    // изменения, пришедшие во время перестроения; защищено монитором индекса
+    private List<long[]> pendingChanges;
+    private final boolean enabled;
+    private final boolean loadOnStartup;
+    private final int fetchSize;
+    public CardOwnerIndexImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${cards.owner-index.enabled:true}") boolean enabled,
+                              @Value("${cards.owner-index.load-on-startup:true}") boolean loadOnStartup,
+                              @Value("${cards.owner-index.fetch-size:10000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.loadOnStartup = loadOnStartup;
+        this.fetchSize = fetchSize;
+        this.owners = new LongLongHashMap(0);
+        Gauge.builder("bank.card_owner_index.size", this, index -> index.owners.size())
+                .description("Карты в индексе владельцев")
+                .register(meterRegistry);
+    }
+    @Override
+    public long ownerOf(long cardId) {
+        return enabled ? owners.get(cardId) : UNKNOWN;
+    }
+    @Override
+    public void put(long cardId, long userId) {
+        if (enabled) {
+            apply(cardId, userId);
+        }
+    }
+    @Override
+    public void putAfterCommit(long cardId, long userId) {
+        if (enabled) {
+            afterCommit(() -> apply(cardId, userId));
+        }
+    }
+    @Override
+    public void removeAfterCommit(long... cardIds) {
+        if (enabled && cardIds.length > 0) {
+            afterCommit(() -> {
+                for (long cardId : cardIds) {
+                    apply(cardId, UNKNOWN);
+                }
+            });
+        }
+    }
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled && loadOnStartup) {
+            rebuild();
+        }
+    }
+    @Override
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                pendingChanges = new ArrayList<>();
+            }
+            try {
+                // курсор Postgres работает только внутри транзакции, иначе драйвер прочитает всю таблицу в память
+                LongLongHashMap rebuilt = transactionTemplate.execute(status -> {
+                    Integer count = jdbcTemplate.queryForObject("SELECT count(*) FROM cards WHERE deleted_at IS NULL", Integer.class);
+                    LongLongHashMap map = new LongLongHashMap(count == null ? 0 : count);
+                    jdbcTemplate.query(connection -> {
+                        PreparedStatement statement = connection.prepareStatement("SELECT id, user_id FROM cards WHERE deleted_at IS NULL");
+                        statement.setFetchSize(fetchSize);
+                        return statement;
+                    }, (RowCallbackHandler) rs -> map.put(rs.getLong(1), rs.getLong(2)));
+                    return map;
+                });
+                synchronized (this) {
+                    pendingChanges.forEach(change -> apply(rebuilt, change[0], change[1]));
+                    owners = rebuilt;
+                }
+                log.info("Индекс владельцев карт загружен: {} карт за {} мс, {} слотов", rebuilt.size(),
+                        (System.nanoTime() - start) / 1_000_000, rebuilt.capacity());
+            } finally {
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+            }
+        }
+    }
+    // userId == UNKNOWN означает удаление
+    private synchronized void apply(long cardId, long userId) {
+        apply(owners, cardId, userId);
+        if (pendingChanges != null) {
+            pendingChanges.add(new long[]{cardId, userId});
+        }
+    }
+    private static void apply(LongLongHashMap map, long cardId, long userId) {
+        if (userId == UNKNOWN) {
+            map.remove(cardId);
+        } else {
+            map.put(cardId, userId);
+        }
+    }
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.bankcards.service.impl.cache;
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.service.CardResponseCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+/**
+ * Кэш {@link CardResponse} по id карты на узле. Записи вытесняются по размеру и TTL, а изменения
+ * карт сбрасывают их после коммита. Загрузка идет внутри {@code Cache.get}: сброс ключа, пришедшийся
+ * на незавершенную загрузку, дожидается ее и удаляет результат, поэтому значение, прочитанное до коммита,
+ * в кэше не остается.
+ * <p>
+ * При {@code card-cache.notify.enabled} сброс дополнительно публикуется через {@code pg_notify} в той же
+ * транзакции: Postgres доставит уведомление другим узлам только после коммита.
+ */
+@Service
+@Slf4j
+public class CardResponseCacheImpl implements CardResponseCache {
+    static final String ALL = "*";
+    static final String CARDS_PREFIX = "c:";
+    static final String USER_PREFIX = "u:";
+    // предел payload у NOTIFY — 8000 байт; более длинный список заменяется полным сбросом
+    private static final int MAX_PAYLOAD_LENGTH = 7900;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<Long, CardResponse> cache;
+    private final boolean enabled;
+    private final boolean notifyEnabled;
+    private final String channel;
+    public CardResponseCacheImpl(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                 @Value("${card-cache.enabled:true}") boolean enabled,
+                                 @Value("${card-cache.maximum-size:100000}") long maximumSize,
+                                 @Value("${card-cache.ttl-seconds:60}") long ttlSeconds,
+                                 @Value("${card-cache.notify.enabled:false}") boolean notifyEnabled,
+                                 @Value("${card-cache.notify.channel:card_cache}") String channel) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.notifyEnabled = enabled && notifyEnabled;
+        this.channel = channel;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "card-responses");
+    }
+    @Override
+    public CardResponse get(Long cardId, Function<Long, CardResponse> loader) {
+        if (!enabled) {
+            return loader.apply(cardId);
+        }
+        return cache.get(cardId, loader);
+    }
+    @Override
+    public void evictAfterCommit(Long... cardIds) {
+        if (!enabled || cardIds.length == 0) {
+            return;
+        }
+        publish(CARDS_PREFIX + Arrays.stream(cardIds).map(String::valueOf).collect(Collectors.joining(",")));
+        afterCommit(() -> cache.invalidateAll(Arrays.asList(cardIds)));
+    }
+    @Override
+    public void evictUserCardsAfterCommit(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        publish(USER_PREFIX + userId);
+        afterCommit(() -> evictUserCards(userId));
+    }
+    /**
+     * Применяет сброс, полученный от другого узла через LISTEN.
+     */
+    public void applyRemoteEviction(String payload) {
+        if (payload.equals(ALL)) {
+            cache.invalidateAll();
+        } else if (payload.startsWith(USER_PREFIX)) {
+            evictUserCards(Long.valueOf(payload.substring(USER_PREFIX.length())));
+        } else if (payload.startsWith(CARDS_PREFIX)) {
+            cache.invalidateAll(Arrays.stream(payload.substring(CARDS_PREFIX.length()).split(","))
+                    .map(Long::valueOf)
+                    .toList());
+        } else {
+            log.warn("Неизвестное уведомление кэша карт: {}", payload);
+        }
+    }
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+    public String getChannel() {
+        return channel;
+    }
+    public long size() {
+        return cache.estimatedSize();
+    }
+    private void evictUserCards(Long userId) {
+        cache.asMap().values().removeIf(card -> userId.equals(card.getUserId()));
+    }
+    private void publish(String payload) {
+        if (notifyEnabled) {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel,
+                    payload.length() > MAX_PAYLOAD_LENGTH ? ALL : payload);
+        }
+    }
+    private static void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
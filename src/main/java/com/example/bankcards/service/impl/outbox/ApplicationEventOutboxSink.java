@@ -0,0 +1,22 @@
+package com.example.bankcards.service.impl.outbox;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.service.outbox.OutboxSink;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import java.util.List;
+@Component
+@RequiredArgsConstructor
+public class ApplicationEventOutboxSink implements OutboxSink {
+    private final ApplicationEventPublisher eventPublisher;
+    @Override
+    public String getName() {
+        return "in-process";
+    }
+    @Override
+    public void deliver(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bankcards.service.impl.outbox;
+import com.example.bankcards.service.OutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+@Component
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+    private final OutboxService outboxService;
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+    @Value("${outbox.relay.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+    public void relay() {
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int delivered;
+            try {
+                delivered = outboxService.relayBatch();
+            } catch (Exception e) {
+                log.error("Ошибка ретрансляции outbox: {}", e.getMessage(), e);
+                return;
+            }
+            if (delivered < batchSize) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.bankcards.service.impl.outbox;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.service.outbox.OutboxSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+@Component
+@ConditionalOnProperty(name = "outbox.sink.webhook.url")
+@Slf4j
+public class WebhookOutboxSink implements OutboxSink {
+    private final URI uri;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    public WebhookOutboxSink(@Value("${outbox.sink.webhook.url}") String url,
+                             @Value("${outbox.sink.webhook.timeout-ms:2000}") long timeoutMs,
+                             ObjectMapper objectMapper) {
+        this.uri = URI.create(url);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        log.info("Webhook sink outbox отправляет события на {}", uri);
+    }
+    @Override
+    public String getName() {
+        return "webhook";
+    }
+    @Override
+    public void deliver(List<OutboxEvent> events) throws IOException, InterruptedException {
+        ArrayNode body = objectMapper.createArrayNode();
+        for (OutboxEvent event : events) {
+            ObjectNode node = body.addObject();
+            node.put("id", event.getId());
+            node.put("aggregateId", event.getAggregateId());
+            node.put("eventType", event.getEventType());
+            node.set("payload", objectMapper.readTree(event.getPayload()));
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Webhook вернул статус " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.service.outbox;
+import com.example.bankcards.entity.OutboxEvent;
+import java.util.List;
+public interface OutboxSink {
+    String getName();
+    void deliver(List<OutboxEvent> events) throws Exception;
+}
@@ -1,9 +1,11 @@
 package com.example.bankcards.util;
+import com.example.bankcards.dto.card.CardBalanceResponse;
 import com.example.bankcards.dto.card.CardResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardOwnerIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -12,12 +14,14 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Component;
 import java.security.SecureRandom;
 import java.time.YearMonth;
+import java.util.List;
 @Component
 @RequiredArgsConstructor
 public class CardUtils {
     private static final String CARD_NUMBER_PREFIX = "3985";
     private static final SecureRandom random = new SecureRandom();
     private final UserRepository userRepository;
+    private final CardOwnerIndex cardOwnerIndex;
     public static String generateCardNumber() {
         StringBuilder cardNumber = new StringBuilder(CARD_NUMBER_PREFIX);
         for (int i = 0; i < 12; i++) {
@@ -33,18 +37,49 @@ public class CardUtils {
         return Card.Status.ACTIVE;
     }
     public void checkCardOwnership(Card card) {
+        checkCardOwnership(card.getUser().getId());
+    }
+    /**
+     * Проверяет владельца по {@link CardOwnerIndex} еще до загрузки карты, чтобы чужая карта отклонялась
+     * без запроса в БД. Возвращает {@code false}, если карты нет в индексе: тогда вызывающий проверяет
+     * владельца после загрузки.
+     */
+    public boolean checkIndexedCardOwnership(Long cardId) {
+        long ownerId = cardOwnerIndex.ownerOf(cardId);
+        if (ownerId == CardOwnerIndex.UNKNOWN) {
+            return false;
+        }
+        checkCardOwnership(ownerId);
+        return true;
+    }
+    public void checkCardOwnership(Long ownerId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.getPrincipal() instanceof UserDetails) {
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
             if (!userDetails.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
-                User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                        .orElseThrow(() -> new UserNotFoundException("Пользователь не найден"));
-                if (!card.getUser().getId().equals(currentUser.getId())) {
+                // JwtRequestFilter кладет в контекст сущность User, повторный запрос в базу не нужен
+                Long currentUserId = userDetails instanceof User user && user.getId() != null
+                        ? user.getId()
+                        : userRepository.findByUsername(userDetails.getUsername())
+                                .orElseThrow(() -> new UserNotFoundException("Пользователь не найден")).getId();
+                if (!ownerId.equals(currentUserId)) {
                     throw new AccessDeniedException("Доступ к карте запрещен");
                 }
             }
         }
     }
+    public static String balanceETag(Long cardId, Long version) {
+        return "\"" + cardId + "-" + version + "\"";
+    }
+    // версия карты растет при каждом изменении строки, поэтому хеш пар (id, version) меняется вместе с ответом
+    public static String balancesETag(List<CardBalanceResponse> balances) {
+        long hash = 1125899906842597L;
+        for (CardBalanceResponse balance : balances) {
+            hash = 31 * hash + balance.getId();
+            hash = 31 * hash + balance.getVersion();
+        }
+        return "\"" + balances.size() + "-" + Long.toHexString(hash) + "\"";
+    }
     public static CardResponse mapToCardResponse(Card card) {
         CardResponse response = new CardResponse();
         response.setId(card.getId());
@@ -54,6 +89,7 @@ public class CardUtils {
         response.setStatus(card.getStatus());
         response.setBalance(card.getBalance());
         response.setUserId(card.getUser().getId());
+        response.setVersion(card.getVersion());
         return response;
     }
 }
\ No newline at end of file
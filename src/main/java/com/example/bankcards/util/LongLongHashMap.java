@@ -0,0 +1,126 @@
+package com.example.bankcards.util;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+/**
+ * Хеш-таблица {@code long -> long} с открытой адресацией и линейным пробированием. Ключ и значение лежат
+ * парой в одном {@code long[]}, поэтому на запись не создается ни одного объекта.
+ * <p>
+ * {@link #get} не берет блокировок и может вызываться из любых потоков; изменения сериализуются монитором
+ * таблицы. Писатель сначала публикует значение, потом ключ, а таблица при расширении подменяется целиком,
+ * так что читатель видит либо запись целиком, либо ее отсутствие. Ключ и значение {@code 0} зарезервированы:
+ * пустой слот и удаленная запись. Удаленная запись занимает слот до следующего расширения.
+ */
+public final class LongLongHashMap {
+    public static final long NO_VALUE = 0;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 29;
+    private volatile long[] table;
+    private int size;
+    private int used;
+    public LongLongHashMap(int expectedSize) {
+        this.table = new long[2 * capacityFor(expectedSize)];
+    }
+    public long get(long key) {
+        long[] slots = table;
+        int mask = (slots.length >> 1) - 1;
+        for (int slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+            long current = (long) SLOTS.getAcquire(slots, slot << 1);
+            if (current == key) {
+                return (long) SLOTS.getAcquire(slots, (slot << 1) + 1);
+            }
+            if (current == 0) {
+                return NO_VALUE;
+            }
+        }
+    }
+    public synchronized void put(long key, long value) {
+        if (key == 0 || value == NO_VALUE) {
+            throw new IllegalArgumentException("Ключ и значение 0 зарезервированы");
+        }
+        long[] slots = table;
+        int mask = (slots.length >> 1) - 1;
+        int slot = slotOf(key, mask);
+        while (true) {
+            long current = slots[slot << 1];
+            if (current == key) {
+                if (slots[(slot << 1) + 1] == NO_VALUE) {
+                    size++;
+                }
+                SLOTS.setRelease(slots, (slot << 1) + 1, value);
+                return;
+            }
+            if (current == 0) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (used + 1 > maxUsed(slots)) {
+            resize(capacityFor(size + 1));
+            put(key, value);
+            return;
+        }
+        SLOTS.setRelease(slots, (slot << 1) + 1, value);
+        SLOTS.setRelease(slots, slot << 1, key);
+        size++;
+        used++;
+    }
+    public synchronized long remove(long key) {
+        long[] slots = table;
+        int mask = (slots.length >> 1) - 1;
+        for (int slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+            long current = slots[slot << 1];
+            if (current == key) {
+                long previous = slots[(slot << 1) + 1];
+                if (previous != NO_VALUE) {
+                    SLOTS.setRelease(slots, (slot << 1) + 1, NO_VALUE);
+                    size--;
+                }
+                return previous;
+            }
+            if (current == 0) {
+                return NO_VALUE;
+            }
+        }
+    }
+    public synchronized int size() {
+        return size;
+    }
+    public int capacity() {
+        return table.length >> 1;
+    }
+    private void resize(int capacity) {
+        long[] slots = table;
+        long[] resized = new long[2 * capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < slots.length; i += 2) {
+            long key = slots[i];
+            long value = slots[i + 1];
+            if (key != 0 && value != NO_VALUE) {
+                int slot = slotOf(key, mask);
+                while (resized[slot << 1] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                resized[slot << 1] = key;
+                resized[(slot << 1) + 1] = value;
+            }
+        }
+        used = size;
+        table = resized;
+    }
+    // заполнение не выше 3/4, чтобы цепочки пробирования оставались короткими и в таблице всегда был пустой слот
+    private static int maxUsed(long[] slots) {
+        return (slots.length >> 1) / 4 * 3;
+    }
+    private static int capacityFor(int expectedSize) {
+        long needed = Math.max(MIN_CAPACITY, (long) expectedSize * 4 / 3 + 1);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalStateException("Слишком много записей: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+    private static int slotOf(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
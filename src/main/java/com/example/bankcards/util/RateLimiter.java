@@ -0,0 +1,97 @@
+package com.example.bankcards.util;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+/**
+ * Набор {@link TokenBucket} по ключу. Для известного ключа проверка — поиск в {@link ConcurrentHashMap}
+ * и CAS в корзине, без блокировок и аллокаций. Размер ограничивается при вставке нового ключа:
+ * когда ключей больше {@code maxKeys}, один поток удаляет сразу пачку в 1/64 таблицы — сначала неактивные
+ * корзины, при нехватке любые. Поэтому обход таблицы приходится в среднем на десятки вставок.
+ */
+public final class RateLimiter {
+    private static final int EVICTION_BATCH_DIVISOR = 64;
+    private final String name;
+    private final int capacity;
+    private final double refillPerSecond;
+    private final int maxKeys;
+    private final int evictionBatch;
+    private final ConcurrentHashMap<String, TokenBucket> buckets;
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    public RateLimiter(String name, int capacity, double refillPerSecond, int maxKeys) {
+        this.name = name;
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.maxKeys = maxKeys;
+        this.evictionBatch = Math.max(1, maxKeys / EVICTION_BATCH_DIVISOR);
+        this.buckets = new ConcurrentHashMap<>(Math.min(maxKeys, 1 << 16));
+    }
+    public long tryAcquire(String key, long nowNanos) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = insert(key, nowNanos);
+        }
+        return bucket.tryAcquire(nowNanos);
+    }
+    public int evictIdle(long nowNanos) {
+        int evicted = 0;
+        for (Map.Entry<String, TokenBucket> entry : buckets.entrySet()) {
+            if (entry.getValue().isIdle(nowNanos) && remove(entry)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+    public String getName() {
+        return name;
+    }
+    public long size() {
+        return size.get();
+    }
+    private TokenBucket insert(String key, long nowNanos) {
+        TokenBucket created = new TokenBucket(capacity, refillPerSecond, nowNanos);
+        TokenBucket existing = buckets.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        int current = size.incrementAndGet();
+        if (current > maxKeys) {
+            evictBatch(current, nowNanos);
+        }
+        return created;
+    }
+    // до предела maxKeys + пачка вставляющие потоки не ждут чистки, выше — ждут: иначе при многих потоках
+    // на одном ядре они добавляют ключи быстрее, чем их успевает удалять один чистящий поток
+    private void evictBatch(int current, long nowNanos) {
+        if (current > maxKeys + evictionBatch) {
+            evictionLock.lock();
+        } else if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int target = maxKeys + 1 - evictionBatch;
+            Iterator<Map.Entry<String, TokenBucket>> iterator = buckets.entrySet().iterator();
+            for (int scanned = 0; iterator.hasNext() && size.get() > target && scanned < 4 * evictionBatch; scanned++) {
+                Map.Entry<String, TokenBucket> entry = iterator.next();
+                if (entry.getValue().isIdle(nowNanos)) {
+                    remove(entry);
+                }
+            }
+            iterator = buckets.entrySet().iterator();
+            while (iterator.hasNext() && size.get() > target) {
+                remove(iterator.next());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    private boolean remove(Map.Entry<String, TokenBucket> entry) {
+        if (buckets.remove(entry.getKey(), entry.getValue())) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+}
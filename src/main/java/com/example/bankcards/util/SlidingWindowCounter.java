@@ -0,0 +1,73 @@
+package com.example.bankcards.util;
+import java.util.concurrent.atomic.AtomicLongArray;
+public final class SlidingWindowCounter {
+    private static final int EPOCH_BITS = 24;
+    private static final int VALUE_BITS = Long.SIZE - EPOCH_BITS;
+    private static final long EPOCH_MASK = (1L << EPOCH_BITS) - 1;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final AtomicLongArray buckets;
+    public SlidingWindowCounter(long windowMillis, int bucketCount) {
+        if (bucketCount <= 0 || windowMillis < bucketCount) {
+            throw new IllegalArgumentException("Некорректные параметры окна: " + windowMillis + " мс, " + bucketCount + " корзин");
+        }
+        this.bucketMillis = windowMillis / bucketCount;
+        this.bucketCount = bucketCount;
+        this.buckets = new AtomicLongArray(bucketCount);
+    }
+    public void add(long timestampMillis, long delta) {
+        long epoch = timestampMillis / bucketMillis;
+        long tag = epoch & EPOCH_MASK;
+        int index = (int) (epoch % bucketCount);
+        while (true) {
+            long current = buckets.get(index);
+            long currentTag = current >>> VALUE_BITS;
+            long next;
+            if (currentTag == tag) {
+                next = (tag << VALUE_BITS) | (((current & VALUE_MASK) + delta) & VALUE_MASK);
+            } else if (current == 0 || isNewer(tag, currentTag)) {
+                // пустая корзина занимается всегда: сравнение с нулевой меткой по модулю 2^24 верно не для любого времени
+                next = (tag << VALUE_BITS) | (delta & VALUE_MASK);
+            } else {
+                return;
+            }
+            if (buckets.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+    /**
+     * Отменяет ранее добавленное значение. Если корзина уже переиспользована более новым интервалом,
+     * значение выпало из окна и вычитать нечего.
+     */
+    public void subtract(long timestampMillis, long delta) {
+        long tag = (timestampMillis / bucketMillis) & EPOCH_MASK;
+        int index = (int) ((timestampMillis / bucketMillis) % bucketCount);
+        while (true) {
+            long current = buckets.get(index);
+            if (current >>> VALUE_BITS != tag) {
+                return;
+            }
+            long next = (tag << VALUE_BITS) | Math.max(0, (current & VALUE_MASK) - delta);
+            if (buckets.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+    public long sum(long nowMillis) {
+        long nowEpoch = nowMillis / bucketMillis;
+        long total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long current = buckets.get(i);
+            long age = (nowEpoch - (current >>> VALUE_BITS)) & EPOCH_MASK;
+            if (current != 0 && age < bucketCount) {
+                total += current & VALUE_MASK;
+            }
+        }
+        return total;
+    }
+    private static boolean isNewer(long tag, long currentTag) {
+        return ((tag - currentTag) & EPOCH_MASK) < (1L << (EPOCH_BITS - 1));
+    }
+}
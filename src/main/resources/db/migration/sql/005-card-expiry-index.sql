@@ -0,0 +1,3 @@
+--liquibase formatted sql
+--changeset bank-rest:005-card-expiry-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cards_expiration_unexpired ON cards (expiration_date, id) WHERE status <> 'EXPIRED';
@@ -0,0 +1,3 @@
+--liquibase formatted sql
+--changeset bank-rest:006-card-user-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cards_user_id ON cards (user_id, id);
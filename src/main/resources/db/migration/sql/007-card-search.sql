@@ -0,0 +1,51 @@
+--liquibase formatted sql
+--changeset bank-rest:007-card-last4
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+ALTER TABLE cards ADD COLUMN IF NOT EXISTS last4 VARCHAR(4);
+CREATE TABLE IF NOT EXISTS card_owner_names
+(
+    owner_name VARCHAR(50) PRIMARY KEY
+);
+--changeset bank-rest:007-card-owner-names-trigger splitStatements:false
+CREATE OR REPLACE FUNCTION remember_card_owner_name() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO card_owner_names (owner_name) VALUES (NEW.owner_name) ON CONFLICT DO NOTHING;
+    RETURN NEW;
+END
+$$;
+CREATE TRIGGER cards_remember_owner_name
+    AFTER INSERT OR UPDATE OF owner_name
+    ON cards
+    FOR EACH ROW
+EXECUTE FUNCTION remember_card_owner_name();
+--changeset bank-rest:007-card-search-backfill runInTransaction:false splitStatements:false
+--validCheckSum: ANY
+-- last4 здесь не заполняется: номер зашифрован, его последние цифры вычисляет приложение (CardLast4Backfill)
+DO
+$$
+DECLARE
+    last_id BIGINT := 0;
+    max_id  BIGINT;
+BEGIN
+    SELECT coalesce(max(id), 0) INTO max_id FROM cards;
+    WHILE last_id < max_id LOOP
+        INSERT INTO card_owner_names (owner_name)
+        SELECT DISTINCT owner_name FROM cards WHERE id > last_id AND id <= last_id + 50000
+        ON CONFLICT DO NOTHING;
+        last_id := last_id + 50000;
+        COMMIT;
+    END LOOP;
+END
+$$;
+--changeset bank-rest:007-card-owner-names-trgm-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_card_owner_names_trgm ON card_owner_names USING gin (owner_name gin_trgm_ops);
+--changeset bank-rest:007-card-owner-name-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cards_owner_name ON cards (owner_name, id);
+--changeset bank-rest:007-card-last4-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cards_last4 ON cards (last4, id);
+--changeset bank-rest:007-card-owner-name-status-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cards_owner_name_status ON cards (owner_name, status, id);
+--changeset bank-rest:007-card-last4-owner-name-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cards_last4_owner_name ON cards (last4, owner_name, id);
@@ -0,0 +1,29 @@
+--liquibase formatted sql
+--changeset bank-rest:008-soft-delete-columns
+ALTER TABLE cards ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+--changeset bank-rest:008-cards-deleted-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cards_deleted ON cards (deleted_at) WHERE deleted_at IS NOT NULL;
+--changeset bank-rest:008-users-deleted-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_deleted ON users (deleted_at) WHERE deleted_at IS NOT NULL;
+--changeset bank-rest:008-transactions-from-card-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_from_card ON transactions (from_card_id);
+--changeset bank-rest:008-transactions-to-card-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_to_card ON transactions (to_card_id);
+--changeset bank-rest:008-users-username-active-index runInTransaction:false
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_users_username_active ON users (username) WHERE deleted_at IS NULL;
+--changeset bank-rest:008-users-username-drop-unique
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_username_key;
+--changeset bank-rest:008-card-owner-name-live-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cards_owner_name_live ON cards (owner_name, id) WHERE deleted_at IS NULL;
+DROP INDEX CONCURRENTLY IF EXISTS idx_cards_owner_name;
+--changeset bank-rest:008-card-owner-name-status-live-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cards_owner_name_status_live ON cards (owner_name, status, id) WHERE deleted_at IS NULL;
+DROP INDEX CONCURRENTLY IF EXISTS idx_cards_owner_name_status;
+--changeset bank-rest:008-card-last4-owner-name-live-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cards_last4_owner_name_live ON cards (last4, owner_name, id) WHERE deleted_at IS NULL;
+DROP INDEX CONCURRENTLY IF EXISTS idx_cards_last4_owner_name;
+--changeset bank-rest:008-cards-number-active-index runInTransaction:false
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_cards_encrypted_card_number_active ON cards (encrypted_card_number) WHERE deleted_at IS NULL;
+--changeset bank-rest:008-cards-number-drop-unique
+ALTER TABLE cards DROP CONSTRAINT IF EXISTS cards_encrypted_card_number_key;
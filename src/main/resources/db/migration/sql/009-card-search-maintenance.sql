@@ -0,0 +1,49 @@
+--liquibase formatted sql
+--changeset bank-rest:009-card-owner-names-lock splitStatements:false
+CREATE OR REPLACE FUNCTION remember_card_owner_name() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF NEW.deleted_at IS NOT NULL THEN
+        RETURN NEW;
+    END IF;
+    -- FOR SHARE не дает forget_card_owner_name удалить имя, пока карта с ним не закоммичена
+    LOOP
+        PERFORM 1 FROM card_owner_names WHERE owner_name = NEW.owner_name FOR SHARE;
+        EXIT WHEN FOUND;
+        INSERT INTO card_owner_names (owner_name) VALUES (NEW.owner_name) ON CONFLICT DO NOTHING;
+        EXIT WHEN FOUND;
+    END LOOP;
+    RETURN NEW;
+END
+$$;
+--changeset bank-rest:009-card-owner-names-prune-trigger splitStatements:false
+CREATE OR REPLACE FUNCTION forget_card_owner_name() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    -- блокировка дожидается транзакций, добавляющих карту с этим именем; следующий запрос уже видит их карты
+    PERFORM 1 FROM card_owner_names WHERE owner_name = OLD.owner_name FOR UPDATE;
+    IF FOUND AND NOT EXISTS (SELECT 1 FROM cards WHERE owner_name = OLD.owner_name AND deleted_at IS NULL) THEN
+        DELETE FROM card_owner_names WHERE owner_name = OLD.owner_name;
+    END IF;
+    RETURN NULL;
+END
+$$;
+CREATE TRIGGER cards_forget_owner_name
+    AFTER UPDATE OF owner_name, deleted_at
+    ON cards
+    FOR EACH ROW
+    WHEN (OLD.deleted_at IS NULL AND (NEW.deleted_at IS NOT NULL OR NEW.owner_name <> OLD.owner_name))
+EXECUTE FUNCTION forget_card_owner_name();
+CREATE TRIGGER cards_forget_owner_name_on_delete
+    AFTER DELETE
+    ON cards
+    FOR EACH ROW
+    WHEN (OLD.deleted_at IS NULL)
+EXECUTE FUNCTION forget_card_owner_name();
+--changeset bank-rest:009-card-owner-names-prune
+DELETE FROM card_owner_names n
+WHERE NOT EXISTS (SELECT 1 FROM cards c WHERE c.owner_name = n.owner_name AND c.deleted_at IS NULL);
+--changeset bank-rest:009-card-last4-missing-index runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cards_last4_missing ON cards (id) WHERE last4 IS NULL;
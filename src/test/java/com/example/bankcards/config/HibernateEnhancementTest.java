@@ -0,0 +1,69 @@
+package com.example.bankcards.config;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"spring.jpa.properties.hibernate.default_schema=test"})
+@Sql(scripts = "classpath:db/migration/sql/001-initial-schema-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/002-initial-data-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/clear-schema-test.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class HibernateEnhancementTest {
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    @BeforeEach
+    void setUp() {
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+    @Test
+    void entities_AreEnhancedWithDirtyTracking() {
+        assertTrue(SelfDirtinessTracker.class.isAssignableFrom(Card.class));
+        assertTrue(SelfDirtinessTracker.class.isAssignableFrom(User.class));
+        assertTrue(SelfDirtinessTracker.class.isAssignableFrom(Transaction.class));
+        readWrite.executeWithoutResult(status -> {
+            Card card = entityManager.find(Card.class, 1L);
+            card.setBalance(card.getBalance() + 1);
+            assertArrayEquals(new String[]{"balance"}, ((SelfDirtinessTracker) card).$$_hibernate_getDirtyAttributes());
+        });
+        assertEquals(1001.0, balance(1L));
+    }
+    @Test
+    void readOnlyTransaction_UsesReadOnlySessionWithoutFlush() {
+        readOnly.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            assertTrue(session.isDefaultReadOnly());
+            assertEquals(FlushMode.MANUAL, session.getHibernateFlushMode());
+            Card card = entityManager.find(Card.class, 1L);
+            assertTrue(session.isReadOnly(card));
+            card.setBalance(0.0);
+        });
+        assertEquals(1000.0, balance(1L));
+    }
+    private double balance(long cardId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM test.cards WHERE id = ?", Double.class, cardId);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bankcards.config;
+import com.example.bankcards.dto.user.UserRequest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.default_schema=test",
+        "jpa.second-level-cache.enabled=true"
+})
+@Sql(scripts = "classpath:db/migration/sql/001-initial-schema-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/002-initial-data-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/clear-schema-test.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class SecondLevelCacheTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    private TransactionTemplate readOnly;
+    private Statistics statistics;
+    @BeforeEach
+    void setUp() {
+        // evictAll из JPA чистит только регионы сущностей, а коллекции и natural id остались бы от прошлого теста
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+    @Test
+    void findByUsername_RepeatedLookupIsServedFromCache() {
+        assertEquals(Set.of("ROLE_USER"), authorities("user"));
+        statistics.clear();
+        assertEquals(Set.of("ROLE_USER"), authorities("user"));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(JpaConfig.USERS_REGION).getHitCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(JpaConfig.USER_ROLES_REGION).getHitCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(JpaConfig.ROLES_REGION).getHitCount());
+    }
+    @Test
+    void updateUser_ReplacesCachedUsernameAndRoles() {
+        authorities("user");
+        UserRequest request = new UserRequest();
+        request.setUsername("renamed");
+        request.setRoles(Set.of("ADMIN"));
+        userService.updateUser(1L, request);
+        assertTrue(find("user").isEmpty());
+        assertEquals(Set.of("ROLE_ADMIN"), authorities("renamed"));
+    }
+    @Test
+    void deleteUser_EvictsUserAndAllowsReusingUsername() {
+        authorities("admin");
+        userService.deleteUser(2L);
+        assertTrue(find("admin").isEmpty());
+        UserRequest request = new UserRequest();
+        request.setUsername("admin");
+        request.setPassword("password");
+        Long id = userService.createUser(request).getId();
+        assertEquals(id, find("admin").map(User::getId).orElseThrow());
+    }
+    @Test
+    void deleteCard_KeepsCachedUsers() {
+        authorities("user");
+        cardService.deleteCard(1L);
+        statistics.clear();
+        authorities("user");
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+    private Optional<User> find(String username) {
+        return readOnly.execute(status -> userRepository.findByUsername(username));
+    }
+    private Set<String> authorities(String username) {
+        return readOnly.execute(status -> userRepository.findByUsername(username).orElseThrow().getRoles().stream()
+                .map(Role::getAuthority)
+                .collect(Collectors.toSet()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.config.replica;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+class ReplicaLagMonitorTest {
+    @Test
+    void lagMillis_IsZeroOnlyWhileStreamingAndCaughtUp() {
+        assertEquals(0, ReplicaLagMonitor.lagMillis(true, true, 120_000.0));
+        assertEquals(1500, ReplicaLagMonitor.lagMillis(true, false, 1500.0));
+    }
+    @Test
+    void lagMillis_UsesReplayTimestampWhenReceiverIsDown() {
+        // receiver отключен: LSN совпадают, но реплика не получает новых изменений
+        assertEquals(120_000, ReplicaLagMonitor.lagMillis(false, true, 120_000.0));
+        assertEquals(-1, ReplicaLagMonitor.lagMillis(false, true, null));
+        assertEquals(0, ReplicaLagMonitor.lagMillis(true, false, null));
+    }
+}
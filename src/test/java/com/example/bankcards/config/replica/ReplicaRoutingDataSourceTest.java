@@ -0,0 +1,164 @@
+package com.example.bankcards.config.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Primary и горячая реплика на потоковой репликации; тест пропускается, если Docker недоступен
+@Testcontainers(disabledWithoutDocker = true)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReplicaRoutingDataSourceTest {
+
+    private static final String IMAGE = "postgres:15-alpine";
+    private static final Network NETWORK = Network.newNetwork();
+
+    @Container
+    private static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>(IMAGE)
+            .withNetwork(NETWORK)
+            .withNetworkAliases("primary")
+            .withCopyToContainer(Transferable.of(
+                    "echo 'host replication all all scram-sha-256' >> \"$PGDATA/pg_hba.conf\""),
+                    "/docker-entrypoint-initdb.d/replication.sh")
+            .withCommand("postgres", "-c", "wal_level=replica", "-c", "max_wal_senders=5", "-c", "fsync=off");
+
+    @Container
+    private static final GenericContainer<?> REPLICA = new GenericContainer<>(IMAGE)
+            .withNetwork(NETWORK)
+            .dependsOn(PRIMARY)
+            .withExposedPorts(5432)
+            .withEnv("PGPASSWORD", "test")
+            .withCreateContainerCmdModifier(cmd -> cmd.withUser("postgres").withEntrypoint("sh", "-c",
+                    "rm -rf /var/lib/postgresql/data/* && " +
+                    "until pg_basebackup -h primary -U test -D /var/lib/postgresql/data -R -X stream; do sleep 1; done && " +
+                    "chmod 700 /var/lib/postgresql/data && exec postgres -D /var/lib/postgresql/data"))
+            .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*", 1)
+                    .withStartupTimeout(Duration.ofMinutes(2)));
+
+    private static ReplicaRoutingDataSource routingDataSource;
+    private static ReplicaLagMonitor lagMonitor;
+    private static ReadYourWritesTracker tracker;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate readWrite;
+    private static TransactionTemplate readOnly;
+
+    @BeforeAll
+    static void setUp() {
+        tracker = new ReadYourWritesTracker(60_000);
+        HikariDataSource primary = pool(PRIMARY.getJdbcUrl());
+        HikariDataSource replica = pool("jdbc:postgresql://" + REPLICA.getHost() + ":" + REPLICA.getMappedPort(5432) + "/test");
+        replica.setReadOnly(true);
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(new ReplicaTarget("replica-0", replica)), tracker);
+        routingDataSource.afterPropertiesSet();
+        lagMonitor = new ReplicaLagMonitor(routingDataSource, tracker, 1000, new SimpleMeterRegistry());
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @Order(1)
+    void readOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+        assertTrue(routingDataSource.getReplicas().get(0).isAvailable());
+        assertFalse(servedByReplica(readWrite));
+        assertTrue(servedByReplica(readOnly));
+    }
+
+    @Test
+    @Order(2)
+    void replicaSeesCommittedWritesAfterReplay() throws InterruptedException {
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS replica_probe (id int PRIMARY KEY)");
+            jdbcTemplate.update("INSERT INTO replica_probe VALUES (1) ON CONFLICT DO NOTHING");
+        });
+        long deadline = System.currentTimeMillis() + 10_000;
+        Integer count = 0;
+        while (System.currentTimeMillis() < deadline) {
+            count = readOnly.execute(status -> jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM pg_tables WHERE tablename = 'replica_probe'", Integer.class));
+            if (count == 1) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        assertEquals(1, count);
+    }
+
+    @Test
+    @Order(3)
+    void readsStayOnPrimaryWithinReadYourWritesWindow() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("writer", null, List.of()));
+        assertTrue(servedByReplica(readOnly));
+        tracker.recordWrite("writer");
+        assertFalse(servedByReplica(readOnly));
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("reader", null, List.of()));
+        assertTrue(servedByReplica(readOnly));
+    }
+
+    @Test
+    @Order(4)
+    void readsFallBackToPrimaryWhenReplicaIsDown() {
+        REPLICA.stop();
+        lagMonitor.checkReplicas();
+        assertFalse(routingDataSource.getReplicas().get(0).isAvailable());
+        assertFalse(servedByReplica(readOnly));
+    }
+
+    private static boolean servedByReplica(TransactionTemplate template) {
+        return Boolean.TRUE.equals(template.execute(status ->
+                jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class)));
+    }
+
+    private static HikariDataSource pool(String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername("test");
+        dataSource.setPassword("test");
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setConnectionTimeout(2000);
+        return dataSource;
+    }
+}
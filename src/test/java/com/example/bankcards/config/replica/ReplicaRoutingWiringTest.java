@@ -0,0 +1,89 @@
+package com.example.bankcards.config.replica;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+// "Реплика" — второй пул к той же базе, отличимый по application_name; монитор отставания заменен,
+// потому что настоящая база не в режиме восстановления и была бы исключена из ротации
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.default_schema=test",
+        "datasource.replicas.urls=jdbc:postgresql://localhost:5432/bankdb?ApplicationName=" +
+                ReplicaRoutingWiringTest.REPLICA_APPLICATION_NAME,
+        "datasource.replicas.read-your-writes-window-ms=60000"
+})
+class ReplicaRoutingWiringTest {
+    static final String REPLICA_APPLICATION_NAME = "bank-replica-0";
+    @MockBean
+    private ReplicaLagMonitor replicaLagMonitor;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+    @Autowired
+    private EntityManager entityManager;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    @BeforeEach
+    void setUp() {
+        routingDataSource.getReplicas().get(0).setAvailable(true);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    @Test
+    void transactionManager_IsReadYourWritesJpaTransactionManager() {
+        assertInstanceOf(ReadYourWritesTransactionManager.class, transactionManager);
+    }
+    @Test
+    void readOnlyJpaTransactions_GoToReplicaAndOthersToPrimary() {
+        assertTrue(servedByReplica(readOnly));
+        assertFalse(servedByReplica(readWrite));
+    }
+    @Test
+    void primaryReadTransactions_GoToPrimary() {
+        TransactionTemplate primaryRead = new TransactionTemplate(transactionManager);
+        primaryRead.setReadOnly(true);
+        primaryRead.setName(ReplicaRoutingDataSource.PRIMARY_READ);
+        assertFalse(servedByReplica(primaryRead));
+        assertTrue(servedByReplica(readOnly));
+    }
+    @Test
+    void readsOfUserWhoJustWrote_StayOnPrimary() {
+        authenticate("writer");
+        assertTrue(servedByReplica(readOnly));
+        readWrite.executeWithoutResult(status -> entityManager.createNativeQuery("SELECT 1").getSingleResult());
+        assertFalse(servedByReplica(readOnly));
+        authenticate("reader");
+        assertTrue(servedByReplica(readOnly));
+    }
+    @Test
+    void readOnlyTransactions_FallBackToPrimaryWithoutAvailableReplicas() {
+        routingDataSource.getReplicas().get(0).setAvailable(false);
+        assertFalse(servedByReplica(readOnly));
+    }
+    private boolean servedByReplica(TransactionTemplate template) {
+        return REPLICA_APPLICATION_NAME.equals(template.execute(status -> entityManager
+                .createNativeQuery("SELECT current_setting('application_name')").getSingleResult()));
+    }
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+}
@@ -19,6 +19,8 @@ import java.time.YearMonth;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
@@ -147,4 +149,174 @@ class AdminCardControllerTest {
         assertFalse(cardRepository.existsById(cardId), "Карта должна быть удалена из БД");
         assertEquals(initialCardCount, cardRepository.count(), "Количество карт должно вернуться к исходному значению");
     }
-}
\ No newline at end of file
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void bulkBlockByUser_UpdatesInChunks() throws Exception {
+        mockMvc.perform(post("/api/admin/cards/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"action\": \"BLOCK\", \"userId\": 1, \"chunkSize\": 2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.targetStatus").value("BLOCKED"))
+                .andExpect(jsonPath("$.updated").value(3))
+                .andExpect(jsonPath("$.chunks.length()").value(2))
+                .andExpect(jsonPath("$.chunks[0].updated").value(2))
+                .andExpect(jsonPath("$.chunks[1].updated").value(1));
+        for (Card card : cardRepository.findAll()) {
+            if (card.getUser().getId() == 1L) {
+                assertEquals(Card.Status.BLOCKED, card.getStatus());
+                assertEquals(1L, card.getVersion());
+            } else {
+                assertEquals(Card.Status.ACTIVE, card.getStatus());
+                assertEquals(0L, card.getVersion());
+            }
+        }
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void bulkActivate_SkipsCardsThatAreNotBlocked() throws Exception {
+        mockMvc.perform(post("/api/admin/cards/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"action\": \"ACTIVATE\", \"ids\": [1, 2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scanned").value(0))
+                .andExpect(jsonPath("$.updated").value(0));
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void bulkExpire_MarksOnlyCardsPastExpiry() throws Exception {
+        long expected = cardRepository.findAll().stream()
+                .filter(card -> card.getExpirationDate().isBefore(YearMonth.now()))
+                .count();
+        mockMvc.perform(post("/api/admin/cards/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"action\": \"EXPIRE\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(expected));
+        for (Card card : cardRepository.findAll()) {
+            boolean past = card.getExpirationDate().isBefore(YearMonth.now());
+            assertEquals(past ? Card.Status.EXPIRED : Card.Status.ACTIVE, card.getStatus());
+        }
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void bulkBlockWithoutFilter_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/admin/cards/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"action\": \"BLOCK\"}"))
+                .andExpect(status().isBadRequest());
+        assertTrue(cardRepository.findAll().stream().allMatch(card -> card.getStatus() == Card.Status.ACTIVE));
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllCards_PagesByKeyset() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/admin/cards").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists("X-Next-After-Id"))
+                .andReturn();
+        String afterId = first.getResponse().getHeader("X-Next-After-Id");
+        assertEquals(JsonPath.read(first.getResponse().getContentAsString(), "$[1].id").toString(), afterId);
+        mockMvc.perform(get("/api/admin/cards").param("limit", "2").param("afterId", afterId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(Long.parseLong(afterId) + 1));
+        mockMvc.perform(get("/api/admin/cards").param("limit", "2").param("afterId", String.valueOf(Long.parseLong(afterId) + 2)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().doesNotExist("X-Next-After-Id"));
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllCards_AppliesFilters() throws Exception {
+        mockMvc.perform(get("/api/admin/cards").param("userId", "2").param("ownerNamePrefix", "Ele"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].ownerName").value("Elena Smirnova"))
+                .andExpect(jsonPath("$[0].maskedCardNumber").value("**** **** **** 3333"));
+        mockMvc.perform(get("/api/admin/cards").param("expiresFrom", "2026-01").param("expiresTo", "2026-12"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/api/admin/cards").param("status", "BLOCKED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/api/admin/cards").param("ownerNamePrefix", "%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllCards_LimitTooLarge_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/admin/cards").param("limit", "100000"))
+                .andExpect(status().isBadRequest());
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportCards_StreamsFilteredArray() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/admin/cards/export").param("userId", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(600_000L, result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[*].userId", everyItem(is(1))))
+                .andExpect(jsonPath("$[0].maskedCardNumber").value("**** **** **** 1111"))
+                .andExpect(jsonPath("$[0].version").doesNotExist());
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllCardsAndExport_InvalidFilter_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/admin/cards").param("last4", "44a4"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/cards/export").param("last4", "44a4"))
+                .andExpect(status().isBadRequest());
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void searchCards_RanksPrefixMatchesFirstAndPagesByScore() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/admin/cards/search").param("q", "ova").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].ownerName").value("Anna Petrova"))
+                .andExpect(header().exists("X-Next-After-Score"))
+                .andReturn();
+        mockMvc.perform(get("/api/admin/cards/search").param("q", "ova").param("limit", "1")
+                        .param("afterScore", first.getResponse().getHeader("X-Next-After-Score"))
+                        .param("afterId", first.getResponse().getHeader("X-Next-After-Id")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].ownerName").value("Elena Smirnova"));
+        mockMvc.perform(get("/api/admin/cards/search").param("q", "ivan"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].ownerName").value("Ivan Ivanov"))
+                .andExpect(header().doesNotExist("X-Next-After-Id"));
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void searchCards_MatchesSubstringsAndLast4() throws Exception {
+        mockMvc.perform(get("/api/admin/cards/search").param("q", "SIDOR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].ownerName").value("Mikhail Sidorov"));
+        mockMvc.perform(get("/api/admin/cards/search").param("last4", "4444"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].maskedCardNumber").value("**** **** **** 4444"));
+        mockMvc.perform(get("/api/admin/cards/search").param("q", "ova").param("userId", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].ownerName").value("Elena Smirnova"));
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void searchCards_WithoutSearchTerm_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/admin/cards/search").param("userId", "1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/cards/search").param("q", "iv"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/cards/search").param("last4", "44a4"))
+                .andExpect(status().isBadRequest());
+    }
+}
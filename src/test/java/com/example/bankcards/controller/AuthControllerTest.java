@@ -81,7 +81,8 @@ class AuthControllerTest {
                         .content(objectMapper.writeValueAsString(authRequest)))
                 .andExpect(status().isBadRequest())  
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.fieldErrors.username").value("Имя пользователя не может быть пустым"));  
+                .andExpect(jsonPath("$.fieldErrors.username").value("Имя пользователя не может быть пустым"))
+                .andExpect(jsonPath("$.path").doesNotExist());
         verifyNoInteractions(authService);
     }
     @Test
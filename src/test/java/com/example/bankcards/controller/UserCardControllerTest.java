@@ -5,12 +5,14 @@ import com.example.bankcards.entity.Transaction;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.TransactionRepository;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import com.example.bankcards.dto.card.CardBalanceResponse;
 import com.example.bankcards.dto.card.CardResponse;
 import com.example.bankcards.dto.transaction.TransactionRequest;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.CardService;
 import com.example.bankcards.service.TransactionService;
+import com.example.bankcards.util.CardUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -243,4 +245,45 @@ class UserCardControllerTest {
         System.out.println("Найдено карт в test.cards: " + allCardsAfter.size());
         allCardsAfter.forEach(card -> System.out.println("Card ID: " + card.getId() + ", User ID: " + card.getUser().getId() + ", Balance: " + card.getBalance()));
     }
-}
\ No newline at end of file
+    @Test
+    @WithMockUser(username = "user")
+    void getCardBalances_ShouldReturnBalancesWithETag() throws Exception {
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(new User(1L, "user", "password", new HashSet<>())));
+        when(cardService.getCardBalances(eq(1L), eq(List.of(1L, 2L))))
+                .thenReturn(List.of(new CardBalanceResponse(1L, 1000.0, 3L), new CardBalanceResponse(2L, 2000.0, 0L)));
+        String etag = CardUtils.balancesETag(List.of(new CardBalanceResponse(1L, 1000.0, 3L), new CardBalanceResponse(2L, 2000.0, 0L)));
+        mockMvc.perform(get("/api/user/cards/balances").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].balance").value(1000.0))
+                .andExpect(jsonPath("$[0].version").doesNotExist())
+                .andExpect(jsonPath("$[1].balance").value(2000.0));
+        mockMvc.perform(get("/api/user/cards/balances").param("ids", "1,2").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+    @Test
+    @WithMockUser(username = "user")
+    void getCardBalance_IfNoneMatch_ShouldReturnNotModified() throws Exception {
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(new User(1L, "user", "password", new HashSet<>())));
+        CardResponse card = new CardResponse();
+        card.setId(1L);
+        card.setBalance(1000.0);
+        card.setVersion(7L);
+        when(cardService.getCardById(1L)).thenReturn(card);
+        mockMvc.perform(get("/api/user/cards/1/balance").header("If-None-Match", CardUtils.balanceETag(1L, 7L)))
+                .andExpect(status().isNotModified());
+        card.setVersion(8L);
+        mockMvc.perform(get("/api/user/cards/1/balance").header("If-None-Match", CardUtils.balanceETag(1L, 7L)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", CardUtils.balanceETag(1L, 8L)))
+                .andExpect(jsonPath("$.balance").value(1000.0));
+    }
+    @Test
+    void findBalancesByIdInAndUserId_ShouldSkipForeignCards() {
+        List<CardBalanceResponse> balances = cardRepository.findBalancesByIdInAndUserId(List.of(1L, 2L, 4L, 99L), 1L);
+        assertEquals(List.of(1L, 2L), balances.stream().map(CardBalanceResponse::getId).toList());
+        assertEquals(0L, balances.get(0).getVersion());
+    }
+}
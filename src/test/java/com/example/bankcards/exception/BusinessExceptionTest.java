@@ -0,0 +1,43 @@
+package com.example.bankcards.exception;
+import com.example.bankcards.dto.error.ErrorResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import static org.junit.jupiter.api.Assertions.*;
+class BusinessExceptionTest {
+    @AfterEach
+    void tearDown() {
+        BusinessException.setStackTraces(false);
+    }
+    @Test
+    void stackTrace_IsFilledOnlyWhenEnabled() {
+        IllegalStateException cause = new IllegalStateException("cause");
+        CardNotFoundException stackless = new CardNotFoundException("Карта не найдена", cause);
+        assertEquals(0, stackless.getStackTrace().length);
+        assertSame(cause, stackless.getCause());
+        BusinessException.setStackTraces(true);
+        assertTrue(new CardNotFoundException("Карта не найдена").getStackTrace().length > 0);
+    }
+    @Test
+    void handler_SerializesOnlyPresentFields() throws Exception {
+        GlobalExceptionHandler handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        ErrorResponse response = handler.handleTransactionBadRequestException(
+                new InsufficientFundsException("Недостаточно средств на карте-отправителе"));
+        JsonNode body = objectMapper.readTree(objectMapper.writeValueAsBytes(response));
+        assertEquals(400, body.get("status").asInt());
+        assertEquals("Bad Request", body.get("error").asText());
+        assertEquals("Недостаточно средств на карте-отправителе", body.get("message").asText());
+        assertEquals("", body.get("path").asText());
+        assertTrue(body.hasNonNull("timestamp"));
+        assertFalse(body.has("rule"));
+        assertFalse(body.has("fieldErrors"));
+        JsonNode velocity = objectMapper.readTree(objectMapper.writeValueAsBytes(
+                handler.handleVelocityLimitExceededException(new VelocityLimitExceededException("per-card", "Слишком много переводов"))));
+        assertEquals("per-card", velocity.get("rule").asText());
+        assertEquals(429, velocity.get("status").asInt());
+    }
+}
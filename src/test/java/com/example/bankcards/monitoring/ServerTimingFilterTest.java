@@ -0,0 +1,54 @@
+package com.example.bankcards.monitoring;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.junit.jupiter.api.Assertions.*;
+class ServerTimingFilterTest {
+    private static final Pattern HEADER = Pattern.compile(
+            "filter;dur=(\\d+\\.\\d{2}), jwt;dur=(\\d+\\.\\d{2}), auth;dur=(\\d+\\.\\d{2}), service;dur=(\\d+\\.\\d{2}), " +
+                    "sql;dur=(\\d+\\.\\d{2});desc=\"(\\d+) queries\", commit;dur=(\\d+\\.\\d{2}), total;dur=(\\d+\\.\\d{2})");
+    private ServerTimingFilter filter;
+    @BeforeEach
+    void setUp() {
+        filter = new ServerTimingFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "sampleRate", 1.0);
+        ReflectionTestUtils.setField(filter, "slowRequestMs", 60_000L);
+    }
+    @Test
+    void sampledRequest_WritesHeaderWithAllMetricsBeforeCommit() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/user/cards"), response, (req, res) -> {
+            RequestTimings timings = RequestTimings.current();
+            timings.addJwt(TimeUnit.MILLISECONDS.toNanos(2));
+            timings.addAuth(TimeUnit.MILLISECONDS.toNanos(1));
+            timings.enterService();
+            timings.beforeSql();
+            timings.afterSql(3);
+            timings.exitService();
+            res.getWriter().write("[]");
+            res.flushBuffer();
+        });
+        assertTrue(response.isCommitted());
+        Matcher matcher = HEADER.matcher(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER));
+        assertTrue(matcher.matches(), response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER));
+        assertEquals("2.00", matcher.group(2));
+        assertEquals("1.00", matcher.group(3));
+        assertEquals("3", matcher.group(6));
+        assertTrue(Double.parseDouble(matcher.group(8)) >= Double.parseDouble(matcher.group(4)));
+        assertNull(RequestTimings.current());
+    }
+    @Test
+    void unsampledRequest_HasNoHeaderAndNoTimings() throws Exception {
+        ReflectionTestUtils.setField(filter, "sampleRate", 0.0);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/user/cards"), response,
+                (req, res) -> assertNull(RequestTimings.current()));
+        assertNull(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER));
+    }
+}
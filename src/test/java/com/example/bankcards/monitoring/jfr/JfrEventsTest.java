@@ -0,0 +1,108 @@
+package com.example.bankcards.monitoring.jfr;
+import com.example.bankcards.dto.transaction.TransactionRequest;
+import com.example.bankcards.dto.transaction.TransactionResponse;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.security.JwtRequestFilter;
+import com.example.bankcards.service.TransactionService;
+import com.example.bankcards.service.auth.UserDetailsService;
+import com.example.bankcards.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+class JfrEventsTest {
+    @TempDir
+    Path directory;
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    @Test
+    void transferAspect_RecordsCardsAmountAndOutcome() throws Exception {
+        TransactionService target = request -> {
+            if (request.getAmount() > 100) {
+                throw new InsufficientFundsException("Недостаточно средств на карте-отправителе");
+            }
+            return new TransactionResponse();
+        };
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new JfrEventAspect());
+        TransactionService service = factory.getProxy();
+        List<RecordedEvent> events = record(TransferEvent.class, () -> {
+            service.transfer(request(1L, 2L, 50.0));
+            assertThrows(InsufficientFundsException.class, () -> service.transfer(request(3L, 4L, 500.0)));
+        });
+        assertEquals(2, events.size());
+        assertEquals(1L, events.get(0).getLong("fromCardId"));
+        assertEquals(2L, events.get(0).getLong("toCardId"));
+        assertEquals(50.0, events.get(0).getDouble("amount"));
+        assertTrue(events.get(0).getBoolean("success"));
+        assertEquals(3L, events.get(1).getLong("fromCardId"));
+        assertFalse(events.get(1).getBoolean("success"));
+    }
+    @Test
+    void jwtValidationEvent_RecordsUserIdInsteadOfUsername() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret",
+                "myTestSecretKeyForJWTGenerationWithMinimum256BitsSizeRequiredForHS256Algorithm");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        Role role = new Role();
+        role.setId(1);
+        role.setName(Role.RoleType.USER);
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("jfr-user");
+        user.setPassword("password");
+        user.setRoles(Set.of(role));
+        UserDetailsService userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername("jfr-user")).thenReturn(user);
+        JwtRequestFilter filter = new JwtRequestFilter(userDetailsService, jwtUtil, new SimpleMeterRegistry());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/cards");
+        request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken(user));
+        List<RecordedEvent> events = record(JwtValidationEvent.class,
+                () -> filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain()));
+        assertEquals(1, events.size());
+        assertEquals(7L, events.get(0).getLong("userId"));
+        assertTrue(events.get(0).getBoolean("valid"));
+        assertFalse(events.get(0).hasField("username"));
+    }
+    private List<RecordedEvent> record(Class<? extends jdk.jfr.Event> eventType, ThrowingRunnable action) throws Exception {
+        Path file = directory.resolve(eventType.getSimpleName() + ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventType);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+    private static TransactionRequest request(Long fromCardId, Long toCardId, Double amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setFromCardId(fromCardId);
+        request.setToCardId(toCardId);
+        request.setAmount(amount);
+        return request;
+    }
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
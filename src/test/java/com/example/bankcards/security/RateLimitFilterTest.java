@@ -0,0 +1,76 @@
+package com.example.bankcards.security;
+import com.example.bankcards.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+class RateLimitFilterTest {
+    private MeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(true, 1000, 2, 0.2, 1, 0.5, 100, 50, meterRegistry);
+    }
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    @Test
+    void login_RejectsWithRetryAfterWhenBurstIsSpent() throws Exception {
+        assertEquals(200, perform("POST", "/auth/login").getStatus());
+        assertEquals(200, perform("POST", "/auth/login").getStatus());
+        MockHttpServletResponse rejected = perform("POST", "/auth/login");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("5", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.getContentAsString().contains("\"status\":429"));
+        assertTrue(rejected.getContentAsString().contains("\"path\":\"/auth/login\""));
+        assertEquals(1, meterRegistry.get("bank.rate_limit.rejected").tag("limiter", "login-ip").counter().count());
+    }
+    @Test
+    void transfers_AreLimitedPerUser() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user", null, List.of()));
+        assertEquals(200, perform("POST", "/api/user/transactions/transfer").getStatus());
+        MockHttpServletResponse rejected = perform("POST", "/api/user/transactions/transfer");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("2", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, meterRegistry.get("bank.rate_limit.rejected").tag("limiter", "transfers-user").counter().count());
+        assertEquals(200, perform("GET", "/api/user/cards").getStatus());
+    }
+    @Test
+    void transfers_AreKeyedByUserIdNotUsername() throws Exception {
+        authenticate(user(7L, "alice"));
+        assertEquals(200, perform("POST", "/api/user/transactions/transfer").getStatus());
+        authenticate(user(7L, "alice-renamed"));
+        assertEquals(429, perform("POST", "/api/user/transactions/transfer").getStatus());
+        authenticate(user(8L, "alice"));
+        assertEquals(200, perform("POST", "/api/user/transactions/transfer").getStatus());
+    }
+    private static void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+    private MockHttpServletResponse perform(String method, String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
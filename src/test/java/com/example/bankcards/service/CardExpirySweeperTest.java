@@ -0,0 +1,69 @@
+package com.example.bankcards.service;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.impl.CardExpirySweeper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.YearMonth;
+import static org.junit.jupiter.api.Assertions.*;
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"spring.jpa.properties.hibernate.default_schema=test"})
+@Sql(scripts = "classpath:db/migration/sql/001-initial-schema-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/002-initial-data-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/clear-schema-test.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class CardExpirySweeperTest {
+    private static final long LOCK_KEY = 7305416;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private CardExpirySweeper sweeper;
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new CardExpirySweeper(cardService, jdbcTemplate, meterRegistry);
+        ReflectionTestUtils.setField(sweeper, "chunkSize", 2);
+        ReflectionTestUtils.setField(sweeper, "lockKey", LOCK_KEY);
+    }
+    @Test
+    void sweep_ExpiresOverdueCards() {
+        long overdue = cardRepository.findAll().stream()
+                .filter(card -> card.getExpirationDate().isBefore(YearMonth.now()))
+                .count();
+        sweeper.sweep();
+        for (Card card : cardRepository.findAll()) {
+            boolean past = card.getExpirationDate().isBefore(YearMonth.now());
+            assertEquals(past ? Card.Status.EXPIRED : Card.Status.ACTIVE, card.getStatus());
+        }
+        assertEquals(overdue, meterRegistry.get("bank.card_expiry.expired").counter().count());
+        assertEquals(1, meterRegistry.get("bank.card_expiry.sweep").tag("outcome", "success").timer().count());
+    }
+    @Test
+    void sweep_SkipsWhenLockHeldByAnotherNode() throws Exception {
+        String url = jdbcTemplate.execute((ConnectionCallback<String>)
+                connection -> connection.getMetaData().getURL());
+        try (Connection other = DriverManager.getConnection(url, "postgres", "123");
+             Statement statement = other.createStatement()) {
+            statement.execute("SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+            sweeper.sweep();
+        }
+        assertTrue(cardRepository.findAll().stream().allMatch(card -> card.getStatus() == Card.Status.ACTIVE));
+        assertEquals(1, meterRegistry.get("bank.card_expiry.sweep").tag("outcome", "skipped").timer().count());
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.bankcards.service;
+import com.example.bankcards.dto.card.CardRequest;
+import com.example.bankcards.dto.transaction.TransactionRequest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidCardOperationException;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.default_schema=test",
+        "cards.owner-index.enabled=true",
+        "cards.owner-index.load-on-startup=false"
+})
+@Sql(scripts = "classpath:db/migration/sql/001-initial-schema-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/002-initial-data-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/clear-schema-test.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class CardOwnerIndexTest {
+    @Autowired
+    private CardOwnerIndex cardOwnerIndex;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DataSource dataSource;
+    @BeforeEach
+    void setUp() {
+        cardOwnerIndex.rebuild();
+    }
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    @Test
+    void rebuild_LoadsOwnersOfLiveCards() {
+        assertEquals(1, cardOwnerIndex.ownerOf(1));
+        assertEquals(2, cardOwnerIndex.ownerOf(4));
+        assertEquals(CardOwnerIndex.UNKNOWN, cardOwnerIndex.ownerOf(999));
+    }
+    @Test
+    void cardAndUserChanges_UpdateIndexAfterCommit() {
+        CardRequest request = new CardRequest();
+        request.setOwnerName("Ivan Ivanov");
+        request.setExpirationDate(YearMonth.now().plusYears(2));
+        request.setUserId(2L);
+        Long cardId = cardService.createCard(request).getId();
+        assertEquals(2, cardOwnerIndex.ownerOf(cardId));
+        cardService.deleteCard(cardId);
+        assertEquals(CardOwnerIndex.UNKNOWN, cardOwnerIndex.ownerOf(cardId));
+        userService.deleteUser(1L);
+        assertEquals(CardOwnerIndex.UNKNOWN, cardOwnerIndex.ownerOf(1));
+        assertEquals(2, cardOwnerIndex.ownerOf(4));
+    }
+    @Test
+    void rebuild_ServesOldTableAndReplaysChangesMadeMeanwhile() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("LOCK TABLE test.cards IN ACCESS EXCLUSIVE MODE");
+            Future<?> rebuild = executor.submit(cardOwnerIndex::rebuild);
+            while (!rebuildIsWaiting(statement)) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, cardOwnerIndex.ownerOf(1));
+            cardOwnerIndex.removeAfterCommit(1);
+            cardOwnerIndex.put(999, 2);
+            connection.rollback();
+            rebuild.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(CardOwnerIndex.UNKNOWN, cardOwnerIndex.ownerOf(1));
+        assertEquals(2, cardOwnerIndex.ownerOf(999));
+        assertEquals(1, cardOwnerIndex.ownerOf(2));
+    }
+    private static boolean rebuildIsWaiting(Statement statement) throws Exception {
+        try (ResultSet rs = statement.executeQuery("SELECT count(*) FROM pg_locks WHERE NOT granted AND relation = 'test.cards'::regclass")) {
+            return rs.next() && rs.getInt(1) > 0;
+        }
+    }
+    @Test
+    void transfer_FromForeignCardIsRejectedWithoutWaitingForRowLock() throws Exception {
+        User user = userRepository.findByUsername("user").orElseThrow();
+        TransactionRequest request = new TransactionRequest();
+        request.setFromCardId(4L);
+        request.setToCardId(1L);
+        request.setAmount(1.0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("SELECT id FROM test.cards WHERE id = 4 FOR UPDATE");
+            Future<?> transfer = executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+                return transactionService.transfer(request);
+            });
+            ExecutionException error = assertThrows(ExecutionException.class, () -> transfer.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(InvalidCardOperationException.class, error.getCause());
+            connection.rollback();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.bankcards.service;
+import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.service.impl.cache.CardResponseCacheImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+class CardResponseCacheTest {
+    private final CardResponseCacheImpl cache =
+            new CardResponseCacheImpl(null, new SimpleMeterRegistry(), true, 100, 60, false, "card_cache");
+    private final AtomicInteger loads = new AtomicInteger();
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    @Test
+    void get_LoadsOnceThenHits() {
+        cache.get(1L, this::load);
+        cache.get(1L, this::load);
+        assertEquals(1, loads.get());
+    }
+    @Test
+    void evictAfterCommit_KeepsEntryUntilCommit() {
+        cache.get(1L, this::load);
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterCommit(1L);
+        cache.get(1L, this::load);
+        assertEquals(1, loads.get());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        cache.get(1L, this::load);
+        assertEquals(2, loads.get());
+    }
+    @Test
+    void evictAfterCommit_WithoutTransactionEvictsImmediately() {
+        cache.get(1L, this::load);
+        cache.get(2L, this::load);
+        cache.evictAfterCommit(1L);
+        cache.get(1L, this::load);
+        cache.get(2L, this::load);
+        assertEquals(3, loads.get());
+    }
+    @Test
+    void evictUserCardsAfterCommit_EvictsOnlyThatUser() {
+        cache.get(1L, id -> card(id, 10L));
+        cache.get(2L, id -> card(id, 20L));
+        cache.evictUserCardsAfterCommit(10L);
+        cache.get(1L, this::load);
+        cache.get(2L, this::load);
+        assertEquals(1, loads.get());
+    }
+    @Test
+    void applyRemoteEviction_ParsesPayloads() {
+        cache.get(1L, this::load);
+        cache.get(2L, this::load);
+        cache.get(3L, this::load);
+        cache.applyRemoteEviction("c:1,2");
+        assertEquals(1, cache.size());
+        cache.applyRemoteEviction("*");
+        assertEquals(0, cache.size());
+    }
+    private CardResponse load(Long id) {
+        loads.incrementAndGet();
+        return card(id, 1L);
+    }
+    private static CardResponse card(Long id, Long userId) {
+        CardResponse card = new CardResponse();
+        card.setId(id);
+        card.setUserId(userId);
+        return card;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bankcards.service;
+import com.example.bankcards.dto.card.CardUpdateRequest;
+import com.example.bankcards.service.impl.CardLast4Backfill;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.default_schema=test"
+})
+@Sql(scripts = "classpath:db/migration/sql/001-initial-schema-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/002-initial-data-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/clear-schema-test.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class CardSearchMaintenanceTest {
+    @Autowired
+    private CardLast4Backfill cardLast4Backfill;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Test
+    void backfill_DecryptsNumbersOfCardsWithoutLast4() {
+        jdbcTemplate.update("UPDATE cards SET last4 = NULL WHERE user_id = 1");
+        assertEquals(3, cardLast4Backfill.backfill());
+        assertEquals(List.of("1111", "4444", "0057"),
+                jdbcTemplate.queryForList("SELECT last4 FROM cards WHERE user_id = 1 ORDER BY id", String.class));
+        assertEquals(0, cardLast4Backfill.backfill());
+    }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void ownerNames_ArePrunedWhenLastCardIsDeletedOrRenamed() {
+        String owner = jdbcTemplate.queryForObject("SELECT owner_name FROM cards WHERE id = 1", String.class);
+        assertEquals(1, countCardsOf(owner));
+        CardUpdateRequest rename = new CardUpdateRequest();
+        rename.setOwnerName("Renamed Owner");
+        cardService.updateCard(1L, rename);
+        assertFalse(ownerNames().contains(owner));
+        assertTrue(ownerNames().contains("Renamed Owner"));
+        cardService.deleteCard(1L);
+        assertFalse(ownerNames().contains("Renamed Owner"));
+    }
+    private int countCardsOf(String owner) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM cards WHERE owner_name = ? AND deleted_at IS NULL",
+                Integer.class, owner);
+    }
+    private List<String> ownerNames() {
+        return jdbcTemplate.queryForList("SELECT owner_name FROM card_owner_names", String.class);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.bankcards.service;
 import com.example.bankcards.dto.card.CardRequest;
 import com.example.bankcards.dto.card.CardResponse;
+import com.example.bankcards.dto.card.CardSearchFilter;
 import com.example.bankcards.dto.card.CardUpdateRequest;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
@@ -10,6 +11,7 @@ import com.example.bankcards.exception.InvalidCardOperationException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +32,9 @@ class CardServiceTest {
     private CardService cardService;
     @MockBean
     private CardRepository cardRepository;
+    // индекс владельцев читает настоящую БД, а карты в этих тестах существуют только в моках
+    @MockBean
+    private CardOwnerIndex cardOwnerIndex;
     @MockBean
     private UserRepository userRepository;
     @MockBean
@@ -122,18 +127,29 @@ class CardServiceTest {
     @Test
     @WithMockUser(username = "user")
     void getUserCards_Success() {
-        when(cardRepository.findByUserId(1L, PageRequest.of(0, 10))).thenReturn(new PageImpl<>(List.of(mockCard)));
+        when(cardRepository.findCardResponsesByUserId(1L, PageRequest.of(0, 10)))
+                .thenReturn(new PageImpl<>(List.of(CardUtils.mapToCardResponse(mockCard))));
         Page<CardResponse> response = cardService.getUserCards(1L, PageRequest.of(0, 10));
         assertEquals(1, response.getTotalElements());
-        verify(cardRepository, times(1)).findByUserId(1L, PageRequest.of(0, 10));
+        verify(cardRepository, times(1)).findCardResponsesByUserId(1L, PageRequest.of(0, 10));
     }
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
-    void getAllCards_Success() {
-        when(cardRepository.findAll()).thenReturn(List.of(mockCard));
-        List<CardResponse> response = cardService.getAllCards();
+    void findCards_Success() {
+        CardSearchFilter filter = new CardSearchFilter();
+        when(cardRepository.findCardResponsesAfter(filter, 0L, 10))
+                .thenReturn(List.of(CardUtils.mapToCardResponse(mockCard)));
+        List<CardResponse> response = cardService.findCards(filter, 0L, 10);
         assertEquals(1, response.size());
-        verify(cardRepository, times(1)).findAll();
+        verify(cardRepository, times(1)).findCardResponsesAfter(filter, 0L, 10);
+        verify(cardRepository, never()).findAll();
+    }
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void findCards_LimitTooLarge_ThrowsException() {
+        assertThrows(InvalidCardOperationException.class,
+                () -> cardService.findCards(new CardSearchFilter(), 0L, 1_000_000));
+        verify(cardRepository, never()).findCardResponsesAfter(any(), anyLong(), anyInt());
     }
     @Test
     @WithMockUser(username = "user")
@@ -172,9 +188,15 @@ class CardServiceTest {
     @Test
     @WithMockUser(username = "user")
     void deleteCard_Success() {
-        when(cardRepository.existsById(1L)).thenReturn(true);
+        when(cardRepository.softDeleteById(1L)).thenReturn(1);
         cardService.deleteCard(1L);
-        verify(cardRepository, times(1)).existsById(1L);
-        verify(cardRepository, times(1)).deleteById(1L);
+        verify(cardRepository, times(1)).softDeleteById(1L);
+        verify(cardRepository, never()).deleteById(any());
+    }
+    @Test
+    @WithMockUser(username = "user")
+    void deleteCard_NotFound() {
+        when(cardRepository.softDeleteById(99L)).thenReturn(0);
+        assertThrows(CardNotFoundException.class, () -> cardService.deleteCard(99L));
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 @SpringBootTest
 class EncryptionServiceTest {
     @Autowired
@@ -14,4 +15,9 @@ class EncryptionServiceTest {
         String result = encryptionService.encrypt(data);
         assertEquals("encrypted_testData", result);
     }
+    @Test
+    void decrypt_ReversesEncrypt() {
+        assertEquals("4111111111111111", encryptionService.decrypt(encryptionService.encrypt("4111111111111111")));
+        assertThrows(IllegalArgumentException.class, () -> encryptionService.decrypt("4111111111111111"));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.example.bankcards.service;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.service.outbox.OutboxSink;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import static org.junit.jupiter.api.Assertions.*;
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.default_schema=test",
+        "outbox.relay.max-attempts=2"
+})
+@Sql(scripts = "classpath:db/migration/sql/001-initial-schema-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/002-initial-data-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/clear-schema-test.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class OutboxServiceTest {
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private RecordingSink sink;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @TestConfiguration
+    static class SinkConfig {
+        @Bean
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+    }
+    static class RecordingSink implements OutboxSink {
+        final List<Long> delivered = new CopyOnWriteArrayList<>();
+        volatile boolean failing;
+        @Override
+        public String getName() {
+            return "recording";
+        }
+        @Override
+        public void deliver(List<OutboxEvent> events) {
+            if (failing) {
+                throw new IllegalStateException("sink недоступен");
+            }
+            events.forEach(event -> delivered.add(event.getId()));
+        }
+    }
+    @BeforeEach
+    void setUp() {
+        sink.delivered.clear();
+        sink.failing = false;
+    }
+    @Test
+    void relayBatch_DeliversClaimedEventsInOrderAndDeletesThem() {
+        long first = enqueue(1);
+        long second = enqueue(2);
+        long third = enqueue(1);
+        assertEquals(3, outboxService.relayBatch());
+        assertEquals(List.of(first, second, third), sink.delivered);
+        assertEquals(0, outboxCount());
+        assertEquals(0, outboxService.relayBatch());
+    }
+    @Test
+    void relayBatch_HoldsBackEventsBehindPredecessorLockedByAnotherRelay() throws Exception {
+        long locked = enqueue(1);
+        long blocked = enqueue(1);
+        long other = enqueue(2);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("SELECT id FROM test.outbox WHERE id = " + locked + " FOR UPDATE");
+            assertEquals(1, outboxService.relayBatch());
+            assertEquals(List.of(other), sink.delivered);
+            connection.rollback();
+        }
+        assertEquals(2, outboxService.relayBatch());
+        assertEquals(List.of(other, locked, blocked), sink.delivered);
+    }
+    @Test
+    void relayBatch_ExhaustedEventBecomesDeadLetterAndStopsBlockingItsCard() {
+        long exhausted = enqueue(1);
+        sink.failing = true;
+        assertEquals(0, outboxService.relayBatch());
+        assertEquals(0, outboxService.relayBatch());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT attempts FROM test.outbox WHERE id = ?", Integer.class, exhausted));
+        sink.failing = false;
+        long next = enqueue(1);
+        assertEquals(1, outboxService.relayBatch());
+        assertEquals(List.of(next), sink.delivered);
+        assertEquals(1, outboxCount());
+        assertEquals(1, meterRegistry.get("bank.outbox.dead_letters").gauge().value());
+    }
+    private long enqueue(long cardId) {
+        return jdbcTemplate.queryForObject("INSERT INTO test.outbox (aggregate_type, aggregate_id, event_type, payload) " +
+                "VALUES ('CARD', ?, 'TRANSFER_COMPLETED', '{}') RETURNING id", Long.class, cardId);
+    }
+    private int outboxCount() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM test.outbox", Integer.class);
+    }
+}
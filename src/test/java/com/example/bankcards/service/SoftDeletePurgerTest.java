@@ -0,0 +1,100 @@
+package com.example.bankcards.service;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.impl.SoftDeletePurger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.Duration;
+import static org.junit.jupiter.api.Assertions.*;
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"spring.jpa.properties.hibernate.default_schema=test"})
+@Sql(scripts = "classpath:db/migration/sql/001-initial-schema-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/002-initial-data-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/clear-schema-test.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class SoftDeletePurgerTest {
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private SoftDeletePurger purger;
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        purger = new SoftDeletePurger(jdbcTemplate, meterRegistry);
+        ReflectionTestUtils.setField(purger, "gracePeriod", Duration.ZERO);
+        ReflectionTestUtils.setField(purger, "batchSize", 2);
+        ReflectionTestUtils.setField(purger, "maxBatchesPerRun", 100);
+        ReflectionTestUtils.setField(purger, "lockKey", 7305417L);
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("INSERT INTO test.transactions (from_card_id, to_card_id, amount, status) VALUES (1, 2, 1.0, 'SUCCESS')");
+            jdbcTemplate.update("INSERT INTO test.transactions (from_card_id, to_card_id, amount, status) VALUES (2, 3, 1.0, 'SUCCESS')");
+        }
+    }
+    @Test
+    void deleteCard_HidesCardUntilPurged() {
+        cardService.deleteCard(2L);
+        assertFalse(cardRepository.existsById(2L));
+        assertTrue(cardRepository.findById(2L).isEmpty());
+        assertEquals(1, count("SELECT count(*) FROM test.cards WHERE id = 2"));
+        purger.purge();
+        assertEquals(0, count("SELECT count(*) FROM test.cards WHERE id = 2"));
+        assertEquals(0, count("SELECT count(*) FROM test.transactions"));
+        assertEquals(4, count("SELECT count(*) FROM test.cards"));
+        assertEquals(6, meterRegistry.get("bank.purge.deleted").tag("table", "transactions").counter().count());
+        assertEquals(1, meterRegistry.get("bank.purge.deleted").tag("table", "cards").counter().count());
+    }
+    @Test
+    void deleteUser_PurgesUserAfterCards() {
+        userService.deleteUser(2L);
+        assertFalse(userRepository.existsById(2L));
+        assertTrue(userRepository.findByUsername("admin").isEmpty());
+        assertFalse(cardRepository.existsById(4L));
+        purger.purge();
+        assertEquals(0, count("SELECT count(*) FROM test.users WHERE id = 2"));
+        assertEquals(0, count("SELECT count(*) FROM test.users_roles WHERE user_id = 2"));
+        assertEquals(3, count("SELECT count(*) FROM test.cards"));
+        assertEquals(6, count("SELECT count(*) FROM test.transactions"));
+    }
+    @Test
+    void purge_KeepsRowsWithinGracePeriod() {
+        ReflectionTestUtils.setField(purger, "gracePeriod", Duration.ofHours(1));
+        cardService.deleteCard(2L);
+        purger.purge();
+        assertEquals(1, count("SELECT count(*) FROM test.cards WHERE id = 2"));
+        assertEquals(6, count("SELECT count(*) FROM test.transactions"));
+        assertEquals(1, meterRegistry.get("bank.purge.run").tag("outcome", "success").timer().count());
+    }
+    @Test
+    void deletedCardNumber_CanBeIssuedAgain() {
+        String number = jdbcTemplate.queryForObject("SELECT encrypted_card_number FROM test.cards WHERE id = 2", String.class);
+        assertThrows(DataIntegrityViolationException.class, () -> insertCard(number));
+        cardService.deleteCard(2L);
+        assertFalse(cardRepository.existsByEncryptedCardNumber(number));
+        insertCard(number);
+        assertEquals(2, count("SELECT count(*) FROM test.cards WHERE encrypted_card_number = '" + number + "'"));
+    }
+    private void insertCard(String encryptedCardNumber) {
+        jdbcTemplate.update("INSERT INTO test.cards (encrypted_card_number, owner_name, expiration_date, status, balance, user_id) " +
+                "VALUES (?, 'Anna Petrova', '2028-01-31'::DATE, 'ACTIVE', 0, 1)", encryptedCardNumber);
+    }
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
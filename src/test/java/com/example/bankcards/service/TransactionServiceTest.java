@@ -25,10 +25,15 @@ class TransactionServiceTest {
     private TransactionService transactionService;
     @MockBean
     private CardRepository cardRepository;
+    // индекс владельцев читает настоящую БД, а карты в этих тестах существуют только в моках
+    @MockBean
+    private CardOwnerIndex cardOwnerIndex;
     @MockBean
     private TransactionRepository transactionRepository;
     @MockBean
     private UserRepository userRepository;
+    @MockBean
+    private OutboxService outboxService;
     private TransactionRequest request;
     private Card fromCard;
     private Card toCard;
@@ -59,8 +64,8 @@ class TransactionServiceTest {
         mockTransaction.setId(1L);
         mockTransaction.setAmount(100.0);
         mockTransaction.setStatus(Transaction.Status.SUCCESS);
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(4L)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(4L)).thenReturn(Optional.of(toCard));
         when(userRepository.findByUsername("user")).thenReturn(Optional.of(fromUser));
         when(transactionRepository.save(any(Transaction.class))).thenReturn(mockTransaction);
     }
@@ -75,27 +80,27 @@ class TransactionServiceTest {
         assertNotNull(response.getId());
         assertEquals(100.0, response.getAmount());
         assertEquals(Transaction.Status.SUCCESS.name(), response.getStatus());
-        verify(cardRepository, times(1)).findById(1L);
-        verify(cardRepository, times(1)).findById(4L);
+        verify(cardRepository, times(1)).findByIdForUpdate(1L);
+        verify(cardRepository, times(1)).findByIdForUpdate(4L);
         verify(userRepository, times(1)).findByUsername("user");
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(outboxService, times(1)).enqueueTransferCompleted(any(TransactionResponse.class));
     }
     @Test
     @WithMockUser(username = "user")
     void transfer_FromCardNotFound_ThrowsException() {
         request.setFromCardId(999L);
-        when(cardRepository.findById(999L)).thenReturn(Optional.empty());
+        when(cardRepository.findByIdForUpdate(999L)).thenReturn(Optional.empty());
         assertThrows(CardNotFoundException.class, () -> transactionService.transfer(request));
-        verify(cardRepository, times(1)).findById(999L);
+        verify(cardRepository, times(1)).findByIdForUpdate(999L);
         verify(userRepository, times(1)).findByUsername("user");
     }
     @Test
     @WithMockUser(username = "user")
     void transfer_SameCard_ThrowsException() {
         request.setToCardId(1L);
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
         assertThrows(SameCardTransferException.class, () -> transactionService.transfer(request));
-        verify(cardRepository, times(2)).findById(1L);
+        verify(cardRepository, never()).findByIdForUpdate(anyLong());
         verify(userRepository, times(1)).findByUsername("user");
     }
     @Test
@@ -106,8 +111,9 @@ class TransactionServiceTest {
         toCard.setStatus(Card.Status.ACTIVE);
         when(userRepository.findByUsername("user")).thenReturn(Optional.of(fromUser));
         assertThrows(InsufficientFundsException.class, () -> transactionService.transfer(request));
-        verify(cardRepository, times(1)).findById(1L);
-        verify(cardRepository, times(1)).findById(4L);
+        verify(outboxService, never()).enqueueTransferCompleted(any(TransactionResponse.class));
+        verify(cardRepository, times(1)).findByIdForUpdate(1L);
+        verify(cardRepository, times(1)).findByIdForUpdate(4L);
         verify(userRepository, times(1)).findByUsername("user");
     }
 }
\ No newline at end of file
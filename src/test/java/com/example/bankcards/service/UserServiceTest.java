@@ -5,6 +5,7 @@ import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.exception.UsernameAlreadyExistsException;
+import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.repository.RoleRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import java.util.List;
@@ -28,6 +30,8 @@ class UserServiceTest {
     @MockBean
     private RoleRepository roleRepository;
     @MockBean
+    private CardRepository cardRepository;
+    @MockBean
     private PasswordEncoder passwordEncoder;
     private UserRequest userRequest;
     private User mockUser;
@@ -83,10 +87,10 @@ class UserServiceTest {
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     void getAllUsers_Success() {
-        when(userRepository.findAll()).thenReturn(List.of(mockUser));
+        when(userRepository.findAll(Sort.by("id"))).thenReturn(List.of(mockUser));
         List<UserResponse> response = userService.getAllUsers();
         assertEquals(1, response.size());
-        verify(userRepository, times(1)).findAll();
+        verify(userRepository, times(1)).findAll(Sort.by("id"));
     }
     @Test
     @WithMockUser(username = "user")
@@ -104,10 +108,11 @@ class UserServiceTest {
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     void deleteUser_Success() {
-        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.softDeleteById(1L)).thenReturn(1);
         userService.deleteUser(1L);
-        verify(userRepository, times(1)).existsById(1L);
-        verify(userRepository, times(1)).deleteById(1L);
+        verify(userRepository, times(1)).softDeleteById(1L);
+        verify(cardRepository, times(1)).softDeleteByUserId(1L);
+        verify(userRepository, never()).deleteById(any());
     }
     private Role createRole(Role.RoleType roleType) {
         Role role = new Role();
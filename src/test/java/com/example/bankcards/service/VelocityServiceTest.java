@@ -0,0 +1,133 @@
+package com.example.bankcards.service;
+import com.example.bankcards.dto.transaction.TransactionRequest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.VelocityLimitExceededException;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.impl.VelocityServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.default_schema=test",
+        "velocity.max-transfers-per-card-per-minute=3"
+})
+@Sql(scripts = "classpath:db/migration/sql/001-initial-schema-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/002-initial-data-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:db/migration/sql/clear-schema-test.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class VelocityServiceTest {
+    @Autowired
+    private VelocityServiceImpl velocityService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    private User user;
+    @BeforeEach
+    void setUp() {
+        // счетчики живут в бине между тестами, пустая история их обнуляет
+        velocityService.rebuildFromHistory();
+        user = userRepository.findByUsername("user").orElseThrow();
+        authenticate();
+    }
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    @Test
+    void concurrentTransfers_DoNotExceedCardLimit() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    authenticate();
+                    start.await();
+                    return transactionService.transfer(request(1L, 2L, 1.0));
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<?> result : results) {
+                try {
+                    result.get(10, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(VelocityLimitExceededException.class, e.getCause());
+                }
+            }
+            assertEquals(3, succeeded);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(3, count("SELECT count(*) FROM test.transactions WHERE from_card_id = 1"));
+    }
+    @Test
+    void rolledBackTransfers_AreNotCounted() {
+        assertThrows(InsufficientFundsException.class, () -> transactionService.transfer(request(1L, 2L, 5000.0)));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transactionService.transfer(request(1L, 2L, 1.0));
+            status.setRollbackOnly();
+        });
+        for (int i = 0; i < 3; i++) {
+            transactionService.transfer(request(1L, 2L, 1.0));
+        }
+        VelocityLimitExceededException error = assertThrows(VelocityLimitExceededException.class,
+                () -> transactionService.transfer(request(1L, 2L, 1.0)));
+        assertEquals(VelocityServiceImpl.RULE_CARD_TRANSFERS_PER_MINUTE, error.getRule());
+    }
+    @Test
+    void rebuildFromHistory_RestoresOnlySuccessfulTransfers() {
+        LocalDateTime now = LocalDateTime.now();
+        for (String status : List.of("SUCCESS", "SUCCESS", "FAILED")) {
+            jdbcTemplate.update("INSERT INTO test.transactions (from_card_id, to_card_id, amount, timestamp, status) " +
+                    "VALUES (1, 2, 1.0, ?, ?)", now, status);
+        }
+        velocityService.rebuildFromHistory();
+        transactionService.transfer(request(1L, 2L, 1.0));
+        assertThrows(VelocityLimitExceededException.class, () -> transactionService.transfer(request(1L, 2L, 1.0)));
+        transactionService.transfer(request(2L, 1L, 1.0));
+    }
+    private void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+    private static TransactionRequest request(Long fromCardId, Long toCardId, Double amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setFromCardId(fromCardId);
+        request.setToCardId(toCardId);
+        request.setAmount(amount);
+        return request;
+    }
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.bankcards.util;
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.*;
+class LongLongHashMapTest {
+    @Test
+    void put_OverwritesAndRemoveLeavesSlotReusable() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        map.put(7, 1);
+        map.put(7, 2);
+        assertEquals(2, map.get(7));
+        assertEquals(1, map.size());
+        assertEquals(2, map.remove(7));
+        assertEquals(LongLongHashMap.NO_VALUE, map.get(7));
+        assertEquals(0, map.size());
+        map.put(7, 3);
+        assertEquals(3, map.get(7));
+        assertEquals(1, map.size());
+    }
+    @Test
+    void put_RejectsReservedZero() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, 0));
+    }
+    @Test
+    void randomOperations_MatchHashMap() {
+        LongLongHashMap map = new LongLongHashMap(0);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(50_000);
+            if (random.nextInt(4) == 0) {
+                Long removed = expected.remove(key);
+                assertEquals(removed == null ? LongLongHashMap.NO_VALUE : removed, map.remove(key));
+            } else {
+                long value = 1 + random.nextInt(1_000);
+                expected.put(key, value);
+                map.put(key, value);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 1; key <= 50_000; key++) {
+            assertEquals(expected.getOrDefault(key, LongLongHashMap.NO_VALUE), map.get(key));
+        }
+        assertTrue(map.capacity() <= 4 * Integer.highestOneBit(expected.size()));
+    }
+    @Test
+    void get_SeesConsistentValuesWhileTableGrows() throws Exception {
+        LongLongHashMap map = new LongLongHashMap(0);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] readers = new Future<?>[4];
+            for (int t = 0; t < readers.length; t++) {
+                readers[t] = executor.submit(() -> {
+                    Random random = new Random();
+                    while (writing.get()) {
+                        long key = 1 + random.nextInt(500_000);
+                        long value = map.get(key);
+                        if (value != LongLongHashMap.NO_VALUE && value != key * 3) {
+                            throw new AssertionError("Для ключа " + key + " прочитано " + value);
+                        }
+                    }
+                });
+            }
+            for (long key = 1; key <= 500_000; key++) {
+                map.put(key, key * 3);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(500_000, map.size());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.util;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    @Test
+    void tryAcquire_AllowsBurstThenRejects() {
+        RateLimiter limiter = new RateLimiter("test", 3, 1.0, 100);
+        long now = 0;
+        assertEquals(0, limiter.tryAcquire("user", now));
+        assertEquals(0, limiter.tryAcquire("user", now));
+        assertEquals(0, limiter.tryAcquire("user", now));
+        long wait = limiter.tryAcquire("user", now);
+        assertTrue(wait > 0 && wait <= SECOND);
+    }
+    @Test
+    void tryAcquire_RefillsOverTime() {
+        RateLimiter limiter = new RateLimiter("test", 1, 2.0, 100);
+        assertEquals(0, limiter.tryAcquire("user", 0));
+        assertTrue(limiter.tryAcquire("user", SECOND / 4) > 0);
+        assertEquals(0, limiter.tryAcquire("user", SECOND / 2));
+    }
+    @Test
+    void tryAcquire_KeysAreIndependent() {
+        RateLimiter limiter = new RateLimiter("test", 1, 1.0, 100);
+        assertEquals(0, limiter.tryAcquire("a", 0));
+        assertTrue(limiter.tryAcquire("a", 0) > 0);
+        assertEquals(0, limiter.tryAcquire("b", 0));
+    }
+    @Test
+    void tryAcquire_EvictsWhenFull() {
+        RateLimiter limiter = new RateLimiter("test", 5, 1.0, 2);
+        limiter.tryAcquire("a", 0);
+        limiter.tryAcquire("b", 0);
+        limiter.tryAcquire("c", 10 * SECOND);
+        assertEquals(2, limiter.size());
+    }
+    @Test
+    void tryAcquire_EvictsIdleBucketsFirst() {
+        RateLimiter limiter = new RateLimiter("test", 1, 1.0, 2);
+        assertEquals(0, limiter.tryAcquire("idle", 0));
+        assertEquals(0, limiter.tryAcquire("busy", 5 * SECOND));
+        assertEquals(0, limiter.tryAcquire("new", 5 * SECOND));
+        assertEquals(2, limiter.size());
+        assertTrue(limiter.tryAcquire("busy", 5 * SECOND) > 0);
+    }
+    @Test
+    void tryAcquire_StaysBoundedUnderConcurrentInserts() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter("test", 1, 1.0, 1000);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            String prefix = "t" + t + ".";
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    limiter.tryAcquire(prefix + i, 0);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(limiter.size() <= 1000 + 1000 / 64 + threads.size());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.bankcards.util;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+class SlidingWindowCounterTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    @Test
+    void sum_CountsOnlyEventsInsideWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(MINUTE, 60);
+        long start = 1_700_000_000_000L;
+        counter.add(start, 3);
+        counter.add(start + 30_000, 2);
+        assertEquals(5, counter.sum(start + 30_000));
+        assertEquals(2, counter.sum(start + MINUTE + 1_000));
+        assertEquals(0, counter.sum(start + 2 * MINUTE));
+    }
+    @Test
+    void add_IgnoresEventsOlderThanWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(MINUTE, 60);
+        long now = 1_700_000_000_000L;
+        counter.add(now, 1);
+        counter.add(now - 2 * MINUTE, 5);
+        assertEquals(1, counter.sum(now));
+    }
+    @Test
+    void add_ReusesBucketAfterWrapAround() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(MINUTE, 60);
+        long now = 1_700_000_000_000L;
+        counter.add(now, 7);
+        counter.add(now + MINUTE, 1);
+        assertEquals(1, counter.sum(now + MINUTE));
+    }
+    @Test
+    void add_FillsEmptyBucketsForAnyEpoch() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(MINUTE, 60);
+        // секундная эпоха этого момента по модулю 2^24 больше 2^23
+        long now = 1_792_413_664_000L;
+        counter.add(now, 1);
+        counter.add(now + 1_000, 1);
+        assertEquals(2, counter.sum(now + 1_000));
+    }
+    @Test
+    void subtract_UndoesAddUnlessBucketWasReused() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(MINUTE, 60);
+        long now = 1_700_000_000_000L;
+        counter.add(now, 5);
+        counter.subtract(now, 2);
+        assertEquals(3, counter.sum(now));
+        counter.add(now + MINUTE, 1);
+        counter.subtract(now, 3);
+        assertEquals(1, counter.sum(now + MINUTE));
+    }
+    @Test
+    void add_IsExactUnderConcurrency() throws InterruptedException {
+        SlidingWindowCounter counter = new SlidingWindowCounter(MINUTE, 60);
+        long now = 1_700_000_000_000L;
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    counter.add(now + (i % 1000), 1);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals((long) threads * perThread, counter.sum(now + 1000));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.util;
+import org.junit.jupiter.api.Test;
+import java.util.SplittableRandom;
+import static org.junit.jupiter.api.Assertions.*;
+class ZipfSamplerTest {
+    @Test
+    void sample_StaysWithinRange() {
+        ZipfSampler sampler = new ZipfSampler(50, 1.1);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 100_000; i++) {
+            int rank = sampler.sample(random);
+            assertTrue(rank >= 1 && rank <= 50, "Ранг вне диапазона: " + rank);
+        }
+    }
+    @Test
+    void sample_FollowsPowerLawBetweenTopRanks() {
+        ZipfSampler sampler = new ZipfSampler(1000, 1.0);
+        SplittableRandom random = new SplittableRandom(7);
+        int[] counts = new int[1001];
+        for (int i = 0; i < 500_000; i++) {
+            counts[sampler.sample(random)]++;
+        }
+        double ratio = (double) counts[1] / counts[2];
+        assertEquals(2.0, ratio, 0.1, "Для exponent=1 первый ранг должен встречаться вдвое чаще второго");
+        assertTrue(counts[1] > counts[10] && counts[10] > counts[100]);
+    }
+    @Test
+    void constructor_RejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(10, 0));
+    }
+}
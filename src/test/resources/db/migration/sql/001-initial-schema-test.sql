@@ -8,9 +8,12 @@ CREATE TABLE IF NOT EXISTS test.roles
 CREATE TABLE IF NOT EXISTS test.users
 (
     id       BIGSERIAL PRIMARY KEY,
-    username VARCHAR(50) UNIQUE NOT NULL,
-    password VARCHAR(255)       NOT NULL
+    username VARCHAR(50)  NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    deleted_at TIMESTAMP
 );
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_username_active ON test.users (username) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_users_deleted ON test.users (deleted_at) WHERE deleted_at IS NOT NULL;
 CREATE TABLE IF NOT EXISTS test.users_roles
 (
     user_id BIGINT  NOT NULL REFERENCES test.users (id) ON DELETE CASCADE,
@@ -20,13 +23,47 @@ CREATE TABLE IF NOT EXISTS test.users_roles
 CREATE TABLE IF NOT EXISTS test.cards
 (
     id                    BIGSERIAL PRIMARY KEY,
-    encrypted_card_number TEXT UNIQUE      NOT NULL,
+    encrypted_card_number TEXT             NOT NULL,
     owner_name            VARCHAR(50)      NOT NULL,
     expiration_date       DATE             NOT NULL,
     status                VARCHAR(20)      NOT NULL,
     balance               DOUBLE PRECISION NOT NULL DEFAULT 0.0,
-    user_id               BIGINT           NOT NULL REFERENCES test.users (id)
+    user_id               BIGINT           NOT NULL REFERENCES test.users (id),
+    version               BIGINT           NOT NULL DEFAULT 0,
+    last4                 VARCHAR(4),
+    deleted_at            TIMESTAMP
 );
+CREATE UNIQUE INDEX IF NOT EXISTS ux_cards_encrypted_card_number_active ON test.cards (encrypted_card_number) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_cards_deleted ON test.cards (deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_cards_expiration_unexpired ON test.cards (expiration_date, id) WHERE status <> 'EXPIRED';
+CREATE INDEX IF NOT EXISTS idx_cards_user_id ON test.cards (user_id, id);
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+CREATE INDEX IF NOT EXISTS idx_cards_last4 ON test.cards (last4, id);
+CREATE INDEX IF NOT EXISTS idx_cards_last4_missing ON test.cards (id) WHERE last4 IS NULL;
+CREATE INDEX IF NOT EXISTS idx_cards_owner_name_live ON test.cards (owner_name, id) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_cards_owner_name_status_live ON test.cards (owner_name, status, id) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_cards_last4_owner_name_live ON test.cards (last4, owner_name, id) WHERE deleted_at IS NULL;
+CREATE TABLE IF NOT EXISTS test.card_owner_names
+(
+    owner_name VARCHAR(50) PRIMARY KEY
+);
+CREATE INDEX IF NOT EXISTS idx_card_owner_names_trgm ON test.card_owner_names USING gin (owner_name public.gin_trgm_ops);
+CREATE OR REPLACE FUNCTION test.remember_card_owner_name() RETURNS trigger LANGUAGE plpgsql AS
+'BEGIN IF NEW.deleted_at IS NOT NULL THEN RETURN NEW; END IF;
+LOOP PERFORM 1 FROM test.card_owner_names WHERE owner_name = NEW.owner_name FOR SHARE; EXIT WHEN FOUND;
+INSERT INTO test.card_owner_names (owner_name) VALUES (NEW.owner_name) ON CONFLICT DO NOTHING; EXIT WHEN FOUND; END LOOP;
+RETURN NEW; END';
+CREATE TRIGGER cards_remember_owner_name AFTER INSERT OR UPDATE OF owner_name ON test.cards
+    FOR EACH ROW EXECUTE FUNCTION test.remember_card_owner_name();
+CREATE OR REPLACE FUNCTION test.forget_card_owner_name() RETURNS trigger LANGUAGE plpgsql AS
+'BEGIN PERFORM 1 FROM test.card_owner_names WHERE owner_name = OLD.owner_name FOR UPDATE;
+IF FOUND AND NOT EXISTS (SELECT 1 FROM test.cards WHERE owner_name = OLD.owner_name AND deleted_at IS NULL) THEN
+DELETE FROM test.card_owner_names WHERE owner_name = OLD.owner_name; END IF; RETURN NULL; END';
+CREATE TRIGGER cards_forget_owner_name AFTER UPDATE OF owner_name, deleted_at ON test.cards
+    FOR EACH ROW WHEN (OLD.deleted_at IS NULL AND (NEW.deleted_at IS NOT NULL OR NEW.owner_name <> OLD.owner_name))
+    EXECUTE FUNCTION test.forget_card_owner_name();
+CREATE TRIGGER cards_forget_owner_name_on_delete AFTER DELETE ON test.cards
+    FOR EACH ROW WHEN (OLD.deleted_at IS NULL) EXECUTE FUNCTION test.forget_card_owner_name();
 CREATE TABLE IF NOT EXISTS test.transactions
 (
     id           BIGSERIAL PRIMARY KEY,
@@ -36,6 +73,8 @@ CREATE TABLE IF NOT EXISTS test.transactions
     timestamp    TIMESTAMP        NOT NULL DEFAULT CURRENT_TIMESTAMP,
     status       VARCHAR(20)      NOT NULL
 );
+CREATE INDEX IF NOT EXISTS idx_transactions_from_card ON test.transactions (from_card_id);
+CREATE INDEX IF NOT EXISTS idx_transactions_to_card ON test.transactions (to_card_id);
 INSERT INTO test.roles (name)
 VALUES ('USER');
 INSERT INTO test.roles (name)
@@ -55,4 +94,16 @@ SELECT u.id, r.id
 FROM test.users u,
      test.roles r
 WHERE u.username = 'admin'
-  AND r.name = 'ADMIN';
\ No newline at end of file
+  AND r.name = 'ADMIN';
+CREATE TABLE IF NOT EXISTS test.outbox
+(
+    id             BIGSERIAL PRIMARY KEY,
+    aggregate_type VARCHAR(50)  NOT NULL,
+    aggregate_id   BIGINT       NOT NULL,
+    event_type     VARCHAR(100) NOT NULL,
+    payload        TEXT         NOT NULL,
+    created_at     TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    attempts       INTEGER      NOT NULL DEFAULT 0,
+    last_error     VARCHAR(500)
+);
+CREATE INDEX IF NOT EXISTS idx_outbox_aggregate_id ON test.outbox (aggregate_id, id);
\ No newline at end of file
@@ -32,4 +32,6 @@ VALUES ('encrypted_5675555555553333',
         '2025-12-31'::DATE,
         'ACTIVE',
         3000.0,
-        2);
\ No newline at end of file
+        2);
+UPDATE test.cards
+SET last4 = right(encrypted_card_number, 4);
\ No newline at end of file